@@ -4,14 +4,25 @@ import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.Objects;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
 import java.util.ArrayList;
-import java.util.HashMap;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.SortedMap;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.TreeMap;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
 import java.util.HashSet;
 import java.util.Scanner;
 import java.util.InputMismatchException;
 import java.time.format.DateTimeParseException;
 
 class Carte {
+    protected int id; // atribuit de Biblioteca la adaugare
     protected String nume;
     protected Autor autor;
     protected Sectiune sectiune;
@@ -26,6 +37,14 @@ class Carte {
         this.esteDisponibil = true; // cartea este disponibila la crearea obiectului
     }
 
+    public int getId() {
+        return id;
+    }
+
+    public void setId(int id) {
+        this.id = id;
+    }
+
     public void setNume(String nume) {
         if (nume == null || nume.isEmpty()) {
             throw new IllegalArgumentException("Numele nu poate fi null sau gol.");
@@ -127,6 +146,7 @@ class Carte {
 
 
 class Autor {
+    private int id; // atribuit de Biblioteca la adaugare
     private String nume;
     private String prenume;
     private String nationalitate;
@@ -149,6 +169,14 @@ class Autor {
         this(prenume, nume, nationalitate, null);
     }
 
+    public int getId() {
+        return id;
+    }
+
+    public void setId(int id) {
+        this.id = id;
+    }
+
     public void setNume(String nume) {
         if (nume == null || nume.isEmpty()) {
             throw new IllegalArgumentException("Numele nu poate fi null sau gol.");
@@ -299,6 +327,7 @@ class Cititor {
 
 
 class Sectiune {
+    private int id; // atribuit de Biblioteca la adaugare
     private String numeSectiune;
     private String locatie;
 
@@ -307,6 +336,14 @@ class Sectiune {
         setLocatie(locatie);
     }
 
+    public int getId() {
+        return id;
+    }
+
+    public void setId(int id) {
+        this.id = id;
+    }
+
     public void setNumeSectiune(String numeSectiune) {
         if (numeSectiune == null || numeSectiune.isEmpty()) {
             throw new IllegalArgumentException("Numele sectiunii nu poate fi null sau gol.");
@@ -512,54 +549,574 @@ class EditieSpeciala extends Carte {
 }
 
 
+// map int -> obiect cu adresare deschisa (sondare liniara): cheile stau intr-un int[], deci
+// nu exista Integer-e si noduri de intrare ca la HashMap. Cheia 0 marcheaza un slot liber,
+// asa ca sunt acceptate doar chei pozitive (toate id-urile din biblioteca sunt pozitive).
+class MapaInt<V> {
+    private static final int CAPACITATE_INITIALA = 16;
+
+    private int[] chei = new int[CAPACITATE_INITIALA];
+    private Object[] valori = new Object[CAPACITATE_INITIALA];
+    private int numar;
+
+    @SuppressWarnings("unchecked")
+    public V get(int cheie) {
+        if (cheie <= 0) {
+            return null;
+        }
+        int masca = chei.length - 1;
+        for (int i = slot(cheie, masca); chei[i] != 0; i = (i + 1) & masca) {
+            if (chei[i] == cheie) {
+                return (V) valori[i];
+            }
+        }
+        return null;
+    }
+
+    public boolean containsKey(int cheie) {
+        return get(cheie) != null;
+    }
+
+    // intoarce valoarea inlocuita sau null
+    @SuppressWarnings("unchecked")
+    public V put(int cheie, V valoare) {
+        if (cheie <= 0) {
+            throw new IllegalArgumentException("Cheia trebuie sa fie un numar pozitiv.");
+        }
+        Objects.requireNonNull(valoare);
+        if ((numar + 1) * 3 > chei.length * 2) {
+            redimensioneaza(chei.length * 2);
+        }
+        int masca = chei.length - 1;
+        int i = slot(cheie, masca);
+        while (chei[i] != 0) {
+            if (chei[i] == cheie) {
+                V vechi = (V) valori[i];
+                valori[i] = valoare;
+                return vechi;
+            }
+            i = (i + 1) & masca;
+        }
+        chei[i] = cheie;
+        valori[i] = valoare;
+        numar++;
+        return null;
+    }
+
+    // stergere fara marcaje: elementele care urmeaza in acelasi grup sunt mutate inapoi
+    @SuppressWarnings("unchecked")
+    public V remove(int cheie) {
+        if (cheie <= 0) {
+            return null;
+        }
+        int masca = chei.length - 1;
+        int i = slot(cheie, masca);
+        while (chei[i] != cheie) {
+            if (chei[i] == 0) {
+                return null;
+            }
+            i = (i + 1) & masca;
+        }
+        V vechi = (V) valori[i];
+        int liber = i;
+        for (int j = (i + 1) & masca; chei[j] != 0; j = (j + 1) & masca) {
+            int dorit = slot(chei[j], masca);
+            // elementul din j poate ocupa slotul liber doar daca acesta nu e inaintea slotului sau dorit
+            if (((j - dorit) & masca) >= ((j - liber) & masca)) {
+                chei[liber] = chei[j];
+                valori[liber] = valori[j];
+                liber = j;
+            }
+        }
+        chei[liber] = 0;
+        valori[liber] = null;
+        numar--;
+        // dupa stergeri masive tabloul se micsoreaza, ca sa nu tina memoria ocupata degeaba
+        if (numar * 6 < chei.length && chei.length > CAPACITATE_INITIALA) {
+            redimensioneaza(chei.length / 2);
+        }
+        return vechi;
+    }
+
+    public int size() {
+        return numar;
+    }
+
+    // valorile in ordinea cheilor
+    @SuppressWarnings("unchecked")
+    public List<V> valori() {
+        int[] ordine = chei();
+        List<V> rezultat = new ArrayList<>(ordine.length);
+        for (int cheie : ordine) {
+            rezultat.add(get(cheie));
+        }
+        return rezultat;
+    }
+
+    // cheile, crescator
+    public int[] chei() {
+        int[] rezultat = new int[numar];
+        int n = 0;
+        for (int cheie : chei) {
+            if (cheie != 0) {
+                rezultat[n++] = cheie;
+            }
+        }
+        Arrays.sort(rezultat);
+        return rezultat;
+    }
+
+    // obiectul si cele doua tablouri (fara obiectele referite): 3 campuri de 4 octeti
+    public long memorieOcupata() {
+        return Memorie.obiect(12) + Memorie.tablou(chei.length, 4) + Memorie.tablou(valori.length, Memorie.REFERINTA);
+    }
+
+    private void redimensioneaza(int capacitate) {
+        int[] cheiVechi = chei;
+        Object[] valoriVechi = valori;
+        chei = new int[capacitate];
+        valori = new Object[capacitate];
+        int masca = capacitate - 1;
+        for (int k = 0; k < cheiVechi.length; k++) {
+            if (cheiVechi[k] != 0) {
+                int i = slot(cheiVechi[k], masca);
+                while (chei[i] != 0) {
+                    i = (i + 1) & masca;
+                }
+                chei[i] = cheiVechi[k];
+                valori[i] = valoriVechi[k];
+            }
+        }
+    }
+
+    // id-urile sunt consecutive, asa ca le amestecam (hash Fibonacci) inainte de a lua bitii de jos
+    private static int slot(int cheie, int masca) {
+        int h = cheie * 0x9E3779B9;
+        return (h ^ (h >>> 16)) & masca;
+    }
+}
+
+
+// lista de int-uri fara boxing, folosita pentru indexurile secundare (autor -> carti, sectiune -> carti)
+class ListaInt {
+    private int[] elemente = new int[4];
+    private int numar;
+
+    public void adauga(int valoare) {
+        if (numar == elemente.length) {
+            elemente = Arrays.copyOf(elemente, numar * 2);
+        }
+        elemente[numar++] = valoare;
+    }
+
+    public boolean elimina(int valoare) {
+        for (int i = 0; i < numar; i++) {
+            if (elemente[i] == valoare) {
+                System.arraycopy(elemente, i + 1, elemente, i, numar - i - 1);
+                numar--;
+                if (numar * 4 < elemente.length && elemente.length > 4) {
+                    elemente = Arrays.copyOf(elemente, elemente.length / 2);
+                }
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public int get(int index) {
+        if (index < 0 || index >= numar) {
+            throw new IndexOutOfBoundsException(index);
+        }
+        return elemente[index];
+    }
+
+    public int size() {
+        return numar;
+    }
+
+    public boolean isEmpty() {
+        return numar == 0;
+    }
+
+    public int[] toArray() {
+        return Arrays.copyOf(elemente, numar);
+    }
+
+    // obiectul (o referinta si un int) si tabloul, cu lungimea lui reala, nu doar elementele folosite
+    public long memorieOcupata() {
+        return Memorie.obiect(8) + Memorie.tablou(elemente.length, 4);
+    }
+}
+
+
+// dimensiunile obiectelor pe un JVM HotSpot de 64 de biti cu referinte si pointeri de clasa
+// comprimati (implicit pentru heap-uri sub 32 GB): antet de obiect 12 octeti, antet de tablou
+// 16, referinta 4, totul aliniat la 8 octeti
+final class Memorie {
+    static final int ANTET_OBIECT = 12;
+    static final int ANTET_TABLOU = 16;
+    static final int REFERINTA = 4;
+
+    private Memorie() {}
+
+    static long obiect(int octetiCampuri) {
+        return aliniaza(ANTET_OBIECT + octetiCampuri);
+    }
+
+    static long tablou(int lungime, int octetiElement) {
+        return aliniaza(ANTET_TABLOU + (long) lungime * octetiElement);
+    }
+
+    // Integer.valueOf refoloseste instantele din cache pentru -128..127
+    static long integer(int valoare) {
+        return valoare >= -128 && valoare <= 127 ? 0 : obiect(4);
+    }
+
+    // capacitatea unui HashMap umplut treptat: 16, dublata cand numarul depaseste 3/4 din ea
+    static int capacitateHashMap(int numar) {
+        int capacitate = 16;
+        while (numar > capacitate * 3 / 4) {
+            capacitate *= 2;
+        }
+        return capacitate;
+    }
+
+    // capacitatea unui ArrayList umplut treptat: 10, apoi crestere cu jumatate
+    static int capacitateArrayList(int numar) {
+        if (numar == 0) {
+            return 0;
+        }
+        int capacitate = 10;
+        while (numar > capacitate) {
+            capacitate += capacitate >> 1;
+        }
+        return capacitate;
+    }
+
+    private static long aliniaza(long octeti) {
+        return (octeti + 7) & ~7L;
+    }
+}
+
+
+// cheia de ordonare a catalogului: titlul adus o singura data la forma folosita de
+// compareToIgnoreCase, plus id-ul cartii, ca titlurile identice sa ramana in ordinea adaugarii
+class CheieCarte implements Comparable<CheieCarte> {
+    private final String titlu;
+    private final int idCarte;
+
+    public CheieCarte(Carte carte) {
+        char[] litere = carte.getNume().toCharArray();
+        for (int i = 0; i < litere.length; i++) {
+            litere[i] = Character.toLowerCase(Character.toUpperCase(litere[i]));
+        }
+        this.titlu = new String(litere);
+        this.idCarte = carte.getId();
+    }
+
+    // obiectul (referinta si int), String-ul titlului (referinta, hash, coder, hashIsZero)
+    // si tabloul lui de octeti: Latin-1 cand toate caracterele incap intr-un octet, altfel UTF-16
+    public long memorieOcupata() {
+        int octetiCaracter = 1;
+        for (int i = 0; i < titlu.length(); i++) {
+            if (titlu.charAt(i) > 0xFF) {
+                octetiCaracter = 2;
+                break;
+            }
+        }
+        return Memorie.obiect(8) + Memorie.obiect(10) + Memorie.tablou(titlu.length(), octetiCaracter);
+    }
+
+    @Override
+    public int compareTo(CheieCarte alta) {
+        int rezultat = titlu.compareTo(alta.titlu);
+        return rezultat != 0 ? rezultat : Integer.compare(idCarte, alta.idCarte);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        return o instanceof CheieCarte && compareTo((CheieCarte) o) == 0;
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * titlu.hashCode() + idCarte;
+    }
+}
+
+
+// SortedMap nemodificabil peste o lista deja sortata dupa cheie: TreeMap.putAll recunoaste un
+// SortedMap cu aceeasi ordine si construieste arborele dintr-o singura parcurgere, fara comparatii.
+// Vederile pe intervale (subMap/headMap/tailMap) sunt subliste gasite prin cautare binara.
+class IntrariSortate extends AbstractMap<CheieCarte, Carte> implements SortedMap<CheieCarte, Carte> {
+    private final List<Map.Entry<CheieCarte, Carte>> intrari;
+    // limitele vederii [de, pana); null inseamna nelimitat
+    private final CheieCarte de;
+    private final CheieCarte pana;
+
+    public IntrariSortate(List<Map.Entry<CheieCarte, Carte>> intrari) {
+        this(Collections.unmodifiableList(intrari), null, null);
+    }
+
+    private IntrariSortate(List<Map.Entry<CheieCarte, Carte>> intrari, CheieCarte de, CheieCarte pana) {
+        this.intrari = intrari;
+        this.de = de;
+        this.pana = pana;
+    }
+
+    @Override
+    public Set<Map.Entry<CheieCarte, Carte>> entrySet() {
+        return new AbstractSet<>() {
+            @Override
+            public Iterator<Map.Entry<CheieCarte, Carte>> iterator() {
+                return intrari.iterator();
+            }
+
+            @Override
+            public int size() {
+                return intrari.size();
+            }
+        };
+    }
+
+    @Override
+    public int size() {
+        return intrari.size();
+    }
+
+    @Override
+    public Carte get(Object cheie) {
+        if (!(cheie instanceof CheieCarte)) {
+            return null;
+        }
+        int poz = primaCelPutin((CheieCarte) cheie);
+        if (poz < intrari.size() && intrari.get(poz).getKey().compareTo((CheieCarte) cheie) == 0) {
+            return intrari.get(poz).getValue();
+        }
+        return null;
+    }
+
+    @Override
+    public boolean containsKey(Object cheie) {
+        return get(cheie) != null;
+    }
+
+    // ordinea naturala a cheilor, ca la catalog
+    @Override
+    public Comparator<? super CheieCarte> comparator() {
+        return null;
+    }
+
+    @Override
+    public CheieCarte firstKey() {
+        if (intrari.isEmpty()) {
+            throw new NoSuchElementException();
+        }
+        return intrari.get(0).getKey();
+    }
+
+    @Override
+    public CheieCarte lastKey() {
+        if (intrari.isEmpty()) {
+            throw new NoSuchElementException();
+        }
+        return intrari.get(intrari.size() - 1).getKey();
+    }
+
+    @Override
+    public SortedMap<CheieCarte, Carte> subMap(CheieCarte deLa, CheieCarte panaLa) {
+        if (deLa.compareTo(panaLa) > 0) {
+            throw new IllegalArgumentException("Inceputul intervalului este dupa sfarsit.");
+        }
+        verificaInInterval(deLa);
+        verificaInInterval(panaLa);
+        return new IntrariSortate(intrari.subList(primaCelPutin(deLa), primaCelPutin(panaLa)), deLa, panaLa);
+    }
+
+    @Override
+    public SortedMap<CheieCarte, Carte> headMap(CheieCarte panaLa) {
+        verificaInInterval(panaLa);
+        return new IntrariSortate(intrari.subList(0, primaCelPutin(panaLa)), de, panaLa);
+    }
+
+    @Override
+    public SortedMap<CheieCarte, Carte> tailMap(CheieCarte deLa) {
+        verificaInInterval(deLa);
+        return new IntrariSortate(intrari.subList(primaCelPutin(deLa), intrari.size()), deLa, pana);
+    }
+
+    // ca la TreeMap, o vedere nu poate fi extinsa dincolo de limitele ei
+    private void verificaInInterval(CheieCarte cheie) {
+        if ((de != null && cheie.compareTo(de) < 0) || (pana != null && cheie.compareTo(pana) > 0)) {
+            throw new IllegalArgumentException("Cheia este in afara intervalului.");
+        }
+    }
+
+    // pozitia primei intrari cu cheia >= cheie
+    private int primaCelPutin(CheieCarte cheie) {
+        int st = 0;
+        int dr = intrari.size();
+        while (st < dr) {
+            int mijloc = (st + dr) >>> 1;
+            if (intrari.get(mijloc).getKey().compareTo(cheie) < 0) {
+                st = mijloc + 1;
+            } else {
+                dr = mijloc;
+            }
+        }
+        return st;
+    }
+}
+
+
 class Biblioteca {
-    private List<Carte> listaCarti = new ArrayList<>();
-    private Map<Autor, List<Carte>> cartiAutor = new HashMap<>();
-    private Set<Cititor> cititoriInregistrati = new HashSet<>();
+    // catalogul, ordonat dupa titlu
+    private final TreeMap<CheieCarte, Carte> catalog = new TreeMap<>();
+    // depozitele principale, dupa id
+    private final MapaInt<Carte> carti = new MapaInt<>();
+    private final MapaInt<Autor> autori = new MapaInt<>();
+    private final MapaInt<Cititor> cititoriInregistrati = new MapaInt<>();
+    // indexuri secundare: id autor / id sectiune -> id-urile cartilor
+    private final MapaInt<ListaInt> cartiPeAutor = new MapaInt<>();
+    private final MapaInt<ListaInt> cartiPeSectiune = new MapaInt<>();
     private List<Imprumut> istoricImprumuturi = new ArrayList<>();
     private final List<Imprumut> imprumuturiActive = new ArrayList<>();
+    // o carte are cel mult un imprumut activ
+    private final MapaInt<Imprumut> imprumutActivPeCarte = new MapaInt<>();
     private List<Sectiune> listaSectiuni = new ArrayList<>();
+    private int urmatorIdCarte = 1;
+    private int urmatorIdAutor = 1;
+    private int urmatorIdSectiune = 1;
 
+    // un id setat de apelant se pastreaza daca e liber; un autor fara id (0) primeste urmatorul
     public void adaugaAutor(Autor autor) {
         Objects.requireNonNull(autor);
-        cartiAutor.putIfAbsent(autor, new ArrayList<>());
+        if (autori.get(autor.getId()) == autor) {
+            return;
+        }
+        if (autor.getId() > 0) {
+            if (autori.containsKey(autor.getId())) {
+                throw new IllegalArgumentException("Exista deja un autor cu ID-ul " + autor.getId() + ".");
+            }
+            urmatorIdAutor = Math.max(urmatorIdAutor, autor.getId() + 1);
+        } else {
+            autor.setId(urmatorIdAutor++);
+        }
+        autori.put(autor.getId(), autor);
+        cartiPeAutor.put(autor.getId(), new ListaInt());
     }
 
     public void adaugaCarte(Carte carte) {
         Objects.requireNonNull(carte);
-        listaCarti.add(carte);
-        sorteazaListaCarti(); 
-        
-        Autor autor = carte.getAutor();
-        cartiAutor.computeIfAbsent(autor, k -> new ArrayList<>()).add(carte);
+        if (inregistreazaCarte(carte)) {
+            catalog.put(new CheieCarte(carte), carte);
+        }
+    }
+
+    // incarcare in bloc: cheile se calculeaza si se sorteaza o singura data; intr-un catalog gol
+    // arborele este construit direct din lista sortata
+    public void adaugaCarti(Collection<? extends Carte> cartiNoi) {
+        List<Map.Entry<CheieCarte, Carte>> intrari = new ArrayList<>(cartiNoi.size());
+        try {
+            for (Carte carte : cartiNoi) {
+                Objects.requireNonNull(carte);
+                if (inregistreazaCarte(carte)) {
+                    intrari.add(Map.entry(new CheieCarte(carte), carte));
+                }
+            }
+        } finally {
+            // cartile inregistrate inainte de un id duplicat ajung si in catalog
+            intrari.sort(Map.Entry.comparingByKey());
+            if (catalog.isEmpty()) {
+                catalog.putAll(new IntrariSortate(intrari));
+            } else {
+                for (Map.Entry<CheieCarte, Carte> intrare : intrari) {
+                    catalog.put(intrare.getKey(), intrare.getValue());
+                }
+            }
+        }
+    }
+
+    // pastreaza id-ul dat de apelant (sau atribuie urmatorul, daca e 0) si actualizeaza
+    // indexurile; false daca era deja in biblioteca
+    private boolean inregistreazaCarte(Carte carte) {
+        if (carti.get(carte.getId()) == carte) {
+            return false;
+        }
+        if (carte.getId() > 0) {
+            if (carti.containsKey(carte.getId())) {
+                throw new IllegalArgumentException("Exista deja o carte cu ID-ul " + carte.getId() + ".");
+            }
+            urmatorIdCarte = Math.max(urmatorIdCarte, carte.getId() + 1);
+        } else {
+            carte.setId(urmatorIdCarte++);
+        }
+        carti.put(carte.getId(), carte);
+
+        adaugaAutor(carte.getAutor());
+        cartiPeAutor.get(carte.getAutor().getId()).adauga(carte.getId());
+        int idSectiune = idSectiune(carte.getSectiune());
+        ListaInt cartiSectiune = cartiPeSectiune.get(idSectiune);
+        if (cartiSectiune == null) {
+            cartiSectiune = new ListaInt();
+            cartiPeSectiune.put(idSectiune, cartiSectiune);
+        }
+        cartiSectiune.adauga(carte.getId());
+        return true;
     }
 
     public void stergeCarte(Carte carte) {
         Objects.requireNonNull(carte);
-        listaCarti.remove(carte);
-        cartiAutor.getOrDefault(carte.getAutor(), new ArrayList<>()).remove(carte);
+        if (carti.get(carte.getId()) != carte) {
+            return;
+        }
+        carti.remove(carte.getId());
+        scoateDinCatalog(carte);
+        elimina(cartiPeAutor, carte.getAutor().getId(), carte.getId());
+        elimina(cartiPeSectiune, carte.getSectiune().getId(), carte.getId());
     }
 
     public void stergeAutor(Autor autor) {
         Objects.requireNonNull(autor);
-        cartiAutor.remove(autor);
-        listaCarti.removeIf(carte -> carte.getAutor().equals(autor));
+        if (autori.get(autor.getId()) != autor) {
+            return;
+        }
+        autori.remove(autor.getId());
+        ListaInt iduri = cartiPeAutor.remove(autor.getId());
+        for (int i = 0; i < iduri.size(); i++) {
+            Carte carte = carti.remove(iduri.get(i));
+            scoateDinCatalog(carte);
+            elimina(cartiPeSectiune, carte.getSectiune().getId(), carte.getId());
+        }
     }
 
     public void stergeCititor(Cititor cititor) {
         Objects.requireNonNull(cititor);
-        cititoriInregistrati.remove(cititor);
+        if (cititoriInregistrati.get(cititor.getIdCititor()) == cititor) {
+            cititoriInregistrati.remove(cititor.getIdCititor());
+        }
     }
 
     public void inregistreazaCititor(Cititor cititor) {
         Objects.requireNonNull(cititor);
-        cititoriInregistrati.add(cititor);
+        Cititor existent = cititoriInregistrati.get(cititor.getIdCititor());
+        if (existent != null && existent != cititor) {
+            throw new IllegalArgumentException("Exista deja un cititor cu ID-ul " + cititor.getIdCititor() + ".");
+        }
+        cititoriInregistrati.put(cititor.getIdCititor(), cititor);
+    }
+
+    public Cititor getCititor(int idCititor) {
+        return cititoriInregistrati.get(idCititor);
     }
 
     public void imprumutaCarte(Cititor cititor, Carte carte, LocalDate dataReturnare) {
         Objects.requireNonNull(cititor);
         Objects.requireNonNull(carte);
 
+        if (carti.get(carte.getId()) != carte) {
+            throw new IllegalArgumentException("Cartea nu apartine bibliotecii!");
+        }
         if (!carte.esteDisponibil()) {
             throw new IllegalStateException("Cartea nu este disponibila!");
         }
@@ -569,44 +1126,181 @@ class Biblioteca {
 
         Imprumut imprumut = new Imprumut(cititor, carte, LocalDate.now(), dataReturnare);
         imprumuturiActive.add(imprumut);
+        imprumutActivPeCarte.put(carte.getId(), imprumut);
     }
 
     public void returneazaCarte(Cititor cititor, Carte carte) {
-        Imprumut imprumut = imprumuturiActive.stream()
-            .filter(i -> i.getCititor().equals(cititor) 
-                    && i.getCarteImprumutata().equals(carte) 
-                    && i.esteActiv())
-            .findFirst()
-            .orElseThrow(() -> new IllegalStateException("Imprumutul nu exista!"));
-
-        cititor.getCartiImprumutate().remove(carte);
-        carte.setEsteDisponibil(true);
+        Imprumut imprumut = imprumutActivPeCarte.get(carte.getId());
+        if (imprumut == null || imprumut.getCititor() != cititor || !imprumut.esteActiv()) {
+            throw new IllegalStateException("Imprumutul nu exista!");
+        }
+
+        cititor.returneazaCarte(carte);
         imprumut.finalizeazaImprumut();
+        imprumutActivPeCarte.remove(carte.getId());
         imprumuturiActive.remove(imprumut);
         istoricImprumuturi.add(imprumut);
     }
 
-    private void sorteazaListaCarti() {
-        listaCarti.sort((carte1, carte2) -> carte1.getNume().compareToIgnoreCase(carte2.getNume()));
+    // daca titlul a fost schimbat dupa adaugare, cheia nu se mai potriveste si cautam cartea
+    private void scoateDinCatalog(Carte carte) {
+        if (catalog.remove(new CheieCarte(carte)) == null) {
+            catalog.values().remove(carte);
+        }
+    }
+
+    private static void elimina(MapaInt<ListaInt> index, int cheie, int idCarte) {
+        ListaInt iduri = index.get(cheie);
+        if (iduri != null) {
+            iduri.elimina(idCarte);
+        }
+    }
+
+    // sectiunile pot aparea intai pe o carte, fara sa fi fost adaugate explicit
+    private int idSectiune(Sectiune sectiune) {
+        if (sectiune.getId() == 0) {
+            sectiune.setId(urmatorIdSectiune++);
+        } else {
+            urmatorIdSectiune = Math.max(urmatorIdSectiune, sectiune.getId() + 1);
+        }
+        return sectiune.getId();
     }
 
     public List<Carte> getListaCarti() {
-        return new ArrayList<>(listaCarti);
+        return new ArrayList<>(catalog.values());
+    }
+
+    // vedere nemodificabila asupra catalogului, parcursa in ordinea titlurilor fara copiere
+    public Collection<Carte> getCatalog() {
+        return Collections.unmodifiableCollection(catalog.values());
+    }
+
+    public int getNumarCarti() {
+        return catalog.size();
+    }
+
+    public Carte getCarte(int idCarte) {
+        return carti.get(idCarte);
+    }
+
+    // autorii, in ordinea id-urilor (MapaInt le tine sortate dupa cheie)
+    public List<Autor> getAutori() {
+        return autori.valori();
+    }
+
+    public List<Carte> getCartiAutor(Autor autor) {
+        return cartiDupaIduri(cartiPeAutor.get(autor.getId()));
+    }
+
+    public List<Carte> getCartiSectiune(Sectiune sectiune) {
+        return cartiDupaIduri(cartiPeSectiune.get(sectiune.getId()));
     }
 
     public Map<Autor, List<Carte>> getCartiAutor() {
-        return new HashMap<>(cartiAutor);
+        Map<Autor, List<Carte>> rezultat = new LinkedHashMap<>();
+        for (Autor autor : autori.valori()) {
+            rezultat.put(autor, getCartiAutor(autor));
+        }
+        return rezultat;
     }
 
     public List<Sectiune> getNumeSectiune() {
-        return listaCarti.stream()
-            .map(Carte::getSectiune)
-            .distinct()
-            .toList();
+        List<Sectiune> sectiuni = new ArrayList<>();
+        for (int idSectiune : cartiPeSectiune.chei()) {
+            ListaInt iduri = cartiPeSectiune.get(idSectiune);
+            if (!iduri.isEmpty()) {
+                sectiuni.add(carti.get(iduri.get(0)).getSectiune());
+            }
+        }
+        return sectiuni;
     }
 
     public Set<Cititor> getCititoriInregistrati() {
-        return new HashSet<>(cititoriInregistrati);
+        return new HashSet<>(cititoriInregistrati.valori());
+    }
+
+    private List<Carte> cartiDupaIduri(ListaInt iduri) {
+        if (iduri == null) {
+            return new ArrayList<>();
+        }
+        List<Carte> rezultat = new ArrayList<>(iduri.size());
+        for (int i = 0; i < iduri.size(); i++) {
+            rezultat.add(carti.get(iduri.get(i)));
+        }
+        return rezultat;
+    }
+
+    // cat ocupa structurile bibliotecii (fara obiectele carte/autor/cititor in sine), comparat cu
+    // aceleasi date tinute in HashMap<Integer, ...> si ArrayList<Integer>; se folosesc lungimile
+    // reale ale tablourilor si dimensiunile din Memorie, nu masuratori ale heap-ului
+    public String raportMemorie() {
+        long indexuri = 0;
+        long boxed = 0;
+        int intrari = 0;
+        for (MapaInt<ListaInt> index : List.of(cartiPeAutor, cartiPeSectiune)) {
+            indexuri += index.memorieOcupata();
+            boxed += estimareHashMap(index);
+            for (int cheie : index.chei()) {
+                ListaInt iduri = index.get(cheie);
+                indexuri += iduri.memorieOcupata();
+                boxed += estimareArrayList(iduri);
+                intrari += iduri.size();
+            }
+        }
+        long depozite = 0;
+        for (MapaInt<?> depozit : List.of(carti, autori, cititoriInregistrati, imprumutActivPeCarte)) {
+            depozite += depozit.memorieOcupata();
+            boxed += estimareHashMap(depozit);
+        }
+        // catalogul: TreeMap-ul si cate un TreeMap.Entry (cheie, valoare, stanga, dreapta, parinte,
+        // culoare) plus CheieCarte cu titlul adus la forma de comparare, pe carte
+        long ordonare = Memorie.obiect(7 * Memorie.REFERINTA + 8) + Memorie.obiect(5 * Memorie.REFERINTA + 1) * catalog.size();
+        for (CheieCarte cheie : catalog.keySet()) {
+            ordonare += cheie.memorieOcupata();
+        }
+        Runtime runtime = Runtime.getRuntime();
+        long heapFolosit = runtime.totalMemory() - runtime.freeMemory();
+        return String.format(
+            "Carti: %d, autori: %d, cititori: %d, imprumuturi active: %d%n"
+            + "Depozite dupa id: %s%n"
+            + "Indexuri secundare (%d intrari): %s%n"
+            + "Catalog ordonat dupa titlu: ~%s%n"
+            + "Aceleasi structuri cu colectii boxed: ~%s%n"
+            + "Heap folosit: %s din %s",
+            carti.size(), autori.size(), cititoriInregistrati.size(), imprumutActivPeCarte.size(),
+            octeti(depozite), intrari, octeti(indexuri), octeti(ordonare), octeti(boxed),
+            octeti(heapFolosit), octeti(runtime.maxMemory()));
+    }
+
+    // HashMap (3 referinte de vederi + tabel, 4 int-uri) cu tabelul de bucket-uri, plus pe intrare
+    // un Node (hash, cheie, valoare, urmator) si Integer-ul cheii
+    private static long estimareHashMap(MapaInt<?> depozit) {
+        long octeti = Memorie.obiect(4 * Memorie.REFERINTA + 16)
+            + Memorie.tablou(Memorie.capacitateHashMap(depozit.size()), Memorie.REFERINTA);
+        for (int cheie : depozit.chei()) {
+            octeti += Memorie.obiect(4 + 3 * Memorie.REFERINTA) + Memorie.integer(cheie);
+        }
+        return octeti;
+    }
+
+    // ArrayList (tablou, size, modCount) cu tabloul de referinte si un Integer pe element
+    private static long estimareArrayList(ListaInt iduri) {
+        long octeti = Memorie.obiect(Memorie.REFERINTA + 8)
+            + Memorie.tablou(Memorie.capacitateArrayList(iduri.size()), Memorie.REFERINTA);
+        for (int i = 0; i < iduri.size(); i++) {
+            octeti += Memorie.integer(iduri.get(i));
+        }
+        return octeti;
+    }
+
+    private static String octeti(long numar) {
+        if (numar < 1024) {
+            return numar + " B";
+        }
+        if (numar < 1024 * 1024) {
+            return String.format("%.1f KB", numar / 1024.0);
+        }
+        return String.format("%.1f MB", numar / (1024.0 * 1024));
     }
 
     public List<Imprumut> getIstoricImprumuturi() {
@@ -627,7 +1321,8 @@ class Biblioteca {
         return new ArrayList<>(imprumuturiActive);
     }
     public void adaugaSectiune(Sectiune sectiune) {
-    listaSectiuni.add(sectiune);
+        idSectiune(sectiune);
+        listaSectiuni.add(sectiune);
     }
 
     public void stergeSectiune(Sectiune sectiune) {
@@ -820,6 +1515,7 @@ class Meniu {
                                 System.out.println("9. Afiseaza cititorii inregistrati");
                                 System.out.println("10. Afiseaza istoric imprumuturi");
                                 System.out.println("11. Statistici biblioteca");
+                                System.out.println("12. Raport memorie");
                                 System.out.println("0. Iesire");
 
                                 optiuneAdmin = citesteInt(scanner, "Alege o optiune: ");
@@ -833,9 +1529,13 @@ class Meniu {
                                         String prenumeCititor = scanner.nextLine();
                                         int idCititor = citesteInt(scanner, "ID-ul cititorului: ");
                                         
-                                        Cititor cititor = new Cititor(numeCititor, prenumeCititor, idCititor, "123");
-                                        biblioteca.inregistreazaCititor(cititor);
-                                        System.out.println("Cititorul a fost inregistrat cu succes!");
+                                        try {
+                                            Cititor cititor = new Cititor(numeCititor, prenumeCititor, idCititor, "123");
+                                            biblioteca.inregistreazaCititor(cititor);
+                                            System.out.println("Cititorul a fost inregistrat cu succes!");
+                                        } catch (IllegalArgumentException e) {
+                                            System.out.println(e.getMessage());
+                                        }
                                         break;
                                     
                                     case 2:
@@ -843,7 +1543,7 @@ class Meniu {
                                         String numeCarte = scanner.nextLine();
 
                                         System.out.println("Autori disponibili:");
-                                        List<Autor> autori = new ArrayList<>(biblioteca.getCartiAutor().keySet());
+                                        List<Autor> autori = biblioteca.getAutori();
                                         for (int i = 0; i < autori.size(); i++) {
                                             Autor a = autori.get(i);
                                             System.out.println((i + 1) + ". " + a.getPrenume() + " " + a.getNume());
@@ -916,7 +1616,7 @@ class Meniu {
 
                                     case 5:
                                         System.out.print("Alege numarul autorului de sters: \n");
-                                        List<Autor> autoriBiblioteca = new ArrayList<>(biblioteca.getCartiAutor().keySet());
+                                        List<Autor> autoriBiblioteca = biblioteca.getAutori();
                                         for (int i = 0; i < autoriBiblioteca.size(); i++) {
                                             Autor a = autoriBiblioteca.get(i);
                                             System.out.println((i + 1) + ". " + a.getPrenume() + " " + a.getNume());
@@ -935,11 +1635,7 @@ class Meniu {
                                     case 6:
                                         System.out.print("Introdu ID-ul cititorului de sters: ");
                                         int idCititorStergere = citesteInt(scanner, "ID-ul cititorului: ");
-                                        Set<Cititor> cititori = biblioteca.getCititoriInregistrati();
-                                        Cititor cititorDeSters = cititori.stream()
-                                                .filter(c -> c.getIdCititor() == idCititorStergere)
-                                                .findFirst()
-                                                .orElse(null);
+                                        Cititor cititorDeSters = biblioteca.getCititor(idCititorStergere);
                                         if (cititorDeSters == null) {
                                             System.out.println("Cititorul nu a fost gasit!");
                                             break;
@@ -994,11 +1690,16 @@ class Meniu {
                                     
                                     case 11:
                                         System.out.println("Statistici biblioteca:");
-                                        System.out.println("- Numarul total de carti: " + biblioteca.getListaCarti().size());
+                                        System.out.println("- Numarul total de carti: " + biblioteca.getNumarCarti());
                                         System.out.println("- Numarul total de cititori inregistrati: " + biblioteca.getCititoriInregistrati().size());
                                         System.out.println("- Numarul total de imprumuturi active: " + biblioteca.getImprumuturiActive().size());
                                         break;
 
+                                    case 12:
+                                        System.out.println("Raport memorie:");
+                                        System.out.println(biblioteca.raportMemorie());
+                                        break;
+
                                     case 0:
                                         System.out.println("Iesire din contul de admin.");
                                         autentificat = false;
@@ -1024,10 +1725,10 @@ class Meniu {
                         System.out.print("Introdu parola: ");
                         String parolaCititor = scanner.next();
                         scanner.nextLine();
-                        Cititor cititorGasit = biblioteca.getCititoriInregistrati().stream()
-                                .filter(c -> c.getIdCititor() == idCititor && c.getParola().equals(parolaCititor))
-                                .findFirst()
-                                .orElse(null);
+                        Cititor cititorGasit = biblioteca.getCititor(idCititor);
+                        if (cititorGasit != null && !cititorGasit.getParola().equals(parolaCititor)) {
+                            cititorGasit = null;
+                        }
                         if (cititorGasit != null) {
                             autentificatCititor = true;
                             System.out.println("Autentificare reusita!");
@@ -1045,7 +1746,7 @@ class Meniu {
 
                                 switch(optiuneCititor){
                                     case 1:
-                                        List<Carte> cartiDisponibile = biblioteca.getListaCarti().stream()
+                                        List<Carte> cartiDisponibile = biblioteca.getCatalog().stream()
                                                 .filter(Carte::esteDisponibil)
                                                 .toList();
 
@@ -1109,7 +1810,7 @@ class Meniu {
                                             break;
                                         }
                                         Carte carteReturnare = cartiImprumutate.get(indexCarteReturnare);
-                                        if (!carteReturnare.esteDisponibil()) {
+                                        if (carteReturnare.esteDisponibil()) {
                                             System.out.println("Cartea nu este imprumutata!");
                                             break;
                                         }
@@ -1120,7 +1821,7 @@ class Meniu {
                                     
                                     case 3:
                                         System.out.println("Cartile disponibile:");
-                                        for (Carte carte : biblioteca.getListaCarti()) {
+                                        for (Carte carte : biblioteca.getCatalog()) {
                                             if (carte.esteDisponibil()) {
                                                 System.out.println("- " + carte.getNume() + " de " + carte.getAutor().getPrenume() + " " + carte.getAutor().getNume() + " (" + carte.getAnPublicatie() + ")");
                                             }
@@ -1134,7 +1835,7 @@ class Meniu {
                                             System.out.print("Introdu numele cartii: ");
                                             String numeCarteCautata = scanner.nextLine();
                                             
-                                            List<Carte> cartiGasite = biblioteca.getListaCarti().stream()
+                                            List<Carte> cartiGasite = biblioteca.getCatalog().stream()
                                                     .filter(c -> c.getNume().equalsIgnoreCase(numeCarteCautata))
                                                     .toList();
                                             if (cartiGasite.isEmpty()) {
@@ -1150,7 +1851,7 @@ class Meniu {
                                             System.out.print("Introdu numele autorului: ");
                                             String numeAutorCautat = scanner.nextLine();
                                             
-                                            List<Carte> cartiGasite = biblioteca.getListaCarti().stream()
+                                            List<Carte> cartiGasite = biblioteca.getCatalog().stream()
                                                     .filter(c -> c.getAutor().getNume().equalsIgnoreCase(numeAutorCautat))
                                                     .toList();
                                             
@@ -1165,7 +1866,7 @@ class Meniu {
                                         } else if (criteriu.equalsIgnoreCase("ap")) {
                                             int anPublicatieCautat = citesteInt(scanner, "Introdu anul publicatiei: ");
                                             
-                                            List<Carte> cartiGasite = biblioteca.getListaCarti().stream()
+                                            List<Carte> cartiGasite = biblioteca.getCatalog().stream()
                                                     .filter(c -> c.getAnPublicatie() == anPublicatieCautat)
                                                     .toList();
                                             
@@ -1187,10 +1888,7 @@ class Meniu {
                                         break;
 
                                     case 5:                                   
-                                        Cititor cititorStatistici = biblioteca.getCititoriInregistrati().stream()
-                                                .filter(c -> c.getIdCititor() == idCititor)
-                                                .findFirst()
-                                                .orElse(null);
+                                        Cititor cititorStatistici = biblioteca.getCititor(idCititor);
                                         
                                         try {
                                             if (cititorStatistici == null) {
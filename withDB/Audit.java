@@ -1,30 +1,488 @@
 package withDB;
 
-import java.io.FileWriter;
+import java.io.BufferedWriter;
+import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.time.ZoneId;
 import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.GZIPOutputStream;
 
+// logAction doar pune inregistrarea in coada; un fir separat o scrie in audit.csv.
+// Cand audit.csv depaseste dimensiunea maxima sau se schimba ziua, fisierul este
+// redenumit in audit-<zi>.<n>.csv si comprimat in fundal ca .csv.gz.
+// Optional (-Dbiblioteca.audit.binary=true) se scrie in paralel si audit.bin, cu
+// inregistrari de RECORD_SIZE octeti (id actiune + epoch millis) citite de AuditReader
 public class Audit {
     private static Audit instance;
     private static final String FILE_NAME = "audit.csv";
     private static final DateTimeFormatter FORMATTER = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
 
-    private Audit() {}
+    // configurare (se poate suprascrie cu -Dbiblioteca.audit.*)
+    private static final int QUEUE_CAPACITY = Integer.getInteger("biblioteca.audit.queue", 10_000);
+    private static final int FLUSH_SIZE = Integer.getInteger("biblioteca.audit.flushSize", 256);
+    private static final long FLUSH_INTERVAL_MS = Long.getLong("biblioteca.audit.flushIntervalMs", 200L);
+    private static final Policy POLICY = Policy.valueOf(System.getProperty("biblioteca.audit.policy", "BLOCK"));
+    private static final long MAX_BYTES = Long.getLong("biblioteca.audit.maxBytes", 10L * 1024 * 1024);
+    private static final boolean ROLL_DAILY = Boolean.parseBoolean(System.getProperty("biblioteca.audit.rollDaily", "true"));
+    private static final int MAX_ARCHIVES = Integer.getInteger("biblioteca.audit.maxArchives", 30);
+    private static final boolean BINARY = Boolean.parseBoolean(System.getProperty("biblioteca.audit.binary", "false"));
 
-    public static Audit getInstance() {
+    static final String BINARY_FILE = "audit.bin";
+    static final String DICTIONARY_FILE = "audit-actions.txt"; // linia i = numele actiunii cu id-ul i
+    static final int RECORD_SIZE = Integer.BYTES + Long.BYTES;
+
+    // ce face logAction cand coada e plina
+    public enum Policy {
+        BLOCK,       // asteapta loc in coada
+        DROP,        // renunta la inregistrare (numarata in getDropped)
+        CALLER_RUNS  // scrie direct pe firul apelantului
+    }
+
+    private static final class Record {
+        private final String actionName;
+        private final long timestamp;
+
+        private Record(String actionName, long timestamp) {
+            this.actionName = actionName;
+            this.timestamp = timestamp;
+        }
+    }
+
+    private static final Record STOP = new Record(null, 0);
+
+    private final BlockingQueue<Record> queue = new ArrayBlockingQueue<>(QUEUE_CAPACITY);
+    private final AtomicLong dropped = new AtomicLong();
+    private final Thread writerThread;
+    private final ExecutorService compressor = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "audit-compressor");
+        t.setDaemon(true);
+        return t;
+    });
+    private volatile boolean closed;
+
+    // accesate doar sub lock-ul pe this
+    private FileOutputStream out;
+    private BufferedWriter writer;
+    private int unflushed;
+    private long segmentBytes;
+    private LocalDate segmentDay;
+    private long lastFlush = System.currentTimeMillis();
+    private long cachedSecond = -1;
+    private String cachedTimestamp;
+    private LocalDate cachedDay;
+    private FileChannel binChannel;
+    private ByteBuffer binBuffer;
+    private Map<String, Integer> actionIds;
+    private BufferedWriter dictionary;
+
+    private Audit() {
+        writerThread = new Thread(this::drain, "audit-writer");
+        writerThread.setDaemon(true);
+        writerThread.start();
+        Runtime.getRuntime().addShutdownHook(new Thread(this::close, "audit-shutdown"));
+    }
+
+    public static synchronized Audit getInstance() {
         if (instance == null) {
             instance = new Audit();
         }
         return instance;
     }
 
+    // numele actiunii devine o linie in audit.csv si in dictionarul binar, deci nu poate fi gol
+    // si nu poate contine virgule sau sfarsit de linie
     public void logAction(String actionName) {
-        try (FileWriter writer = new FileWriter(FILE_NAME, true)) {
-            String timestamp = LocalDateTime.now().format(FORMATTER);
-            writer.append(actionName).append(",").append(timestamp).append("\n");
+        if (actionName == null || actionName.isBlank()
+                || actionName.indexOf(',') >= 0 || actionName.indexOf('\n') >= 0 || actionName.indexOf('\r') >= 0) {
+            throw new IllegalArgumentException("Nume de actiune invalid pentru audit: " + actionName);
+        }
+        Record record = new Record(actionName, System.currentTimeMillis());
+        if (closed) {
+            writeNow(record);
+            return;
+        }
+        switch (POLICY) {
+            case DROP:
+                if (!queue.offer(record)) {
+                    dropped.incrementAndGet();
+                }
+                break;
+            case CALLER_RUNS:
+                if (!queue.offer(record)) {
+                    writeNow(record);
+                }
+                break;
+            default:
+                try {
+                    queue.put(record);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    writeNow(record);
+                }
+        }
+        // close() a golit deja coada intre timp: inregistrarea ar ramane acolo nescrisa
+        if (closed) {
+            writeQueued();
+        }
+    }
+
+    static boolean isBinaryEnabled() {
+        return BINARY;
+    }
+
+    public long getDropped() {
+        return dropped.get();
+    }
+
+    // opreste firul de scriere dupa ce goleste coada si forteaza datele pe disc
+    public void close() {
+        synchronized (this) {
+            if (closed) {
+                return;
+            }
+            closed = true;
+        }
+        try {
+            queue.put(STOP);
+            writerThread.join(5_000);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        synchronized (this) {
+            List<Record> ramase = new ArrayList<>();
+            queue.drainTo(ramase);
+            ramase.remove(STOP);
+            write(ramase);
+            closeWriter(true);
+        }
+        compressor.shutdown();
+        try {
+            compressor.awaitTermination(30, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void drain() {
+        List<Record> lot = new ArrayList<>(FLUSH_SIZE);
+        while (true) {
+            try {
+                Record first = queue.poll(FLUSH_INTERVAL_MS, TimeUnit.MILLISECONDS);
+                if (first != null) {
+                    lot.add(first);
+                    queue.drainTo(lot, FLUSH_SIZE - 1);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+            boolean stop = lot.remove(STOP);
+            // o eroare neasteptata nu are voie sa opreasca firul: cu politica BLOCK apelantii
+            // lui logAction ar astepta apoi la nesfarsit dupa o coada plina
+            try {
+                synchronized (this) {
+                    write(lot);
+                    if (!stop && (unflushed >= FLUSH_SIZE
+                            || (unflushed > 0 && System.currentTimeMillis() - lastFlush >= FLUSH_INTERVAL_MS))) {
+                        flush();
+                    }
+                }
+            } catch (RuntimeException e) {
+                System.err.println("Eroare in firul de audit: " + e);
+            }
+            if (stop) {
+                return;
+            }
+            lot.clear();
+        }
+    }
+
+    private synchronized void writeNow(Record record) {
+        write(List.of(record));
+        flush();
+    }
+
+    private synchronized void writeQueued() {
+        List<Record> ramase = new ArrayList<>();
+        queue.drainTo(ramase);
+        ramase.remove(STOP);
+        if (!ramase.isEmpty()) {
+            write(ramase);
+            flush();
+        }
+    }
+
+    private void write(List<Record> records) {
+        if (records.isEmpty()) {
+            return;
+        }
+        try {
+            for (Record record : records) {
+                try {
+                    String timestamp = format(record.timestamp);
+                    if (writer == null) {
+                        openWriter();
+                    }
+                    if (segmentBytes >= MAX_BYTES || (ROLL_DAILY && !segmentDay.equals(cachedDay))) {
+                        roll();
+                    }
+                    writer.append(record.actionName).append(',').append(timestamp).append('\n');
+                    // timestamp-ul, virgula si '\n' sunt ASCII, deci un octet pe caracter
+                    segmentBytes += utf8Length(record.actionName) + timestamp.length() + 2;
+                    if (BINARY) {
+                        if (binBuffer.remaining() < RECORD_SIZE) {
+                            flushBinary();
+                        }
+                        binBuffer.putInt(actionId(record.actionName)).putLong(record.timestamp);
+                    }
+                    unflushed++;
+                } catch (RuntimeException e) {
+                    System.err.println("Inregistrare de audit ignorata (" + record.actionName + "): " + e);
+                }
+            }
         } catch (IOException e) {
             System.err.println("Eroare la scrierea in audit.csv: " + e.getMessage());
+            closeWriter(false);
+        }
+    }
+
+    private void openWriter() throws IOException {
+        Path activ = Paths.get(FILE_NAME);
+        if (Files.exists(activ)) {
+            segmentBytes = Files.size(activ);
+            segmentDay = LocalDate.ofInstant(Files.getLastModifiedTime(activ).toInstant(), ZoneId.systemDefault());
+        } else {
+            segmentBytes = 0;
+            segmentDay = LocalDate.now();
+        }
+        out = new FileOutputStream(FILE_NAME, true);
+        writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), 64 * 1024);
+        if (BINARY) {
+            if (actionIds == null) {
+                incarcaDictionar();
+            }
+            binChannel = FileChannel.open(Paths.get(BINARY_FILE),
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+            binBuffer = ByteBuffer.allocateDirect(RECORD_SIZE * 4096);
+        }
+    }
+
+    private void incarcaDictionar() throws IOException {
+        actionIds = new HashMap<>();
+        Path fisier = Paths.get(DICTIONARY_FILE);
+        if (Files.exists(fisier)) {
+            for (String nume : Files.readAllLines(fisier, StandardCharsets.UTF_8)) {
+                actionIds.put(nume, actionIds.size());
+            }
+        }
+        dictionary = Files.newBufferedWriter(fisier, StandardCharsets.UTF_8,
+            StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+    }
+
+    // id-ul actiunii din dictionar; actiunile noi se adauga imediat in fisier
+    private int actionId(String actionName) throws IOException {
+        Integer id = actionIds.get(actionName);
+        if (id == null) {
+            id = actionIds.size();
+            dictionary.write(actionName);
+            dictionary.newLine();
+            dictionary.flush();
+            actionIds.put(actionName, id);
+        }
+        return id;
+    }
+
+    private void flushBinary() throws IOException {
+        binBuffer.flip();
+        while (binBuffer.hasRemaining()) {
+            binChannel.write(binBuffer);
+        }
+        binBuffer.clear();
+    }
+
+    // inchide segmentul curent, il muta deoparte si porneste unul nou
+    private void roll() throws IOException {
+        closeWriter(true);
+        Path activ = Paths.get(FILE_NAME);
+        if (Files.exists(activ) && Files.size(activ) > 0) {
+            String baza = numeArhiva(segmentDay);
+            Path arhiva = Paths.get(baza + ".csv");
+            Files.move(activ, arhiva, StandardCopyOption.ATOMIC_MOVE);
+            Path binar = Paths.get(BINARY_FILE);
+            if (BINARY && Files.exists(binar)) {
+                // segmentele binare raman necomprimate ca sa poata fi mapate in memorie
+                Files.move(binar, Paths.get(baza + ".bin"), StandardCopyOption.ATOMIC_MOVE);
+            }
+            try {
+                compressor.execute(() -> comprima(arhiva));
+            } catch (RejectedExecutionException e) {
+                comprima(arhiva); // dupa close() nu mai exista firul de comprimare
+            }
+        }
+        openWriter();
+        segmentDay = cachedDay;
+    }
+
+    // audit-<zi>.<n>, fara extensie; n este primul indice nefolosit
+    private String numeArhiva(LocalDate zi) {
+        String baza = FILE_NAME.substring(0, FILE_NAME.lastIndexOf('.'));
+        for (int n = 1; ; n++) {
+            String candidat = baza + "-" + zi + "." + n;
+            if (!Files.exists(Paths.get(candidat + ".csv")) && !Files.exists(Paths.get(candidat + ".csv.gz"))
+                    && !Files.exists(Paths.get(candidat + ".bin"))) {
+                return candidat;
+            }
+        }
+    }
+
+    private void comprima(Path segment) {
+        Path gz = Paths.get(segment + ".gz");
+        try (InputStream in = Files.newInputStream(segment);
+             OutputStream gzOut = new GZIPOutputStream(Files.newOutputStream(gz))) {
+            in.transferTo(gzOut);
+        } catch (IOException e) {
+            System.err.println("Eroare la comprimarea " + segment + ": " + e.getMessage());
+            return;
+        }
+        try {
+            Files.delete(segment);
+        } catch (IOException e) {
+            System.err.println("Eroare la stergerea " + segment + ": " + e.getMessage());
+        }
+        aplicaRetentie();
+    }
+
+    private void aplicaRetentie() {
+        String baza = FILE_NAME.substring(0, FILE_NAME.lastIndexOf('.'));
+        aplicaRetentie(baza + "-*.csv.gz");
+        aplicaRetentie(baza + "-*.bin");
+    }
+
+    // pastreaza doar ultimele MAX_ARCHIVES arhive
+    private void aplicaRetentie(String model) {
+        List<Path> arhive = new ArrayList<>();
+        try (DirectoryStream<Path> dir = Files.newDirectoryStream(Paths.get("."), model)) {
+            dir.forEach(arhive::add);
+        } catch (IOException e) {
+            System.err.println("Eroare la listarea arhivelor audit: " + e.getMessage());
+            return;
+        }
+        if (arhive.size() <= MAX_ARCHIVES) {
+            return;
+        }
+        arhive.sort((a, b) -> {
+            try {
+                return Files.getLastModifiedTime(a).compareTo(Files.getLastModifiedTime(b));
+            } catch (IOException e) {
+                return a.compareTo(b);
+            }
+        });
+        for (Path vechi : arhive.subList(0, arhive.size() - MAX_ARCHIVES)) {
+            try {
+                Files.deleteIfExists(vechi);
+            } catch (IOException e) {
+                System.err.println("Eroare la stergerea " + vechi + ": " + e.getMessage());
+            }
+        }
+    }
+
+    private void flush() {
+        lastFlush = System.currentTimeMillis();
+        if (writer == null) {
+            return;
+        }
+        try {
+            writer.flush();
+            if (BINARY) {
+                flushBinary();
+            }
+            unflushed = 0;
+        } catch (IOException e) {
+            System.err.println("Eroare la scrierea in audit.csv: " + e.getMessage());
+            closeWriter(false);
+        }
+    }
+
+    private void closeWriter(boolean durabil) {
+        if (writer == null) {
+            return;
+        }
+        try {
+            writer.flush();
+            if (durabil) {
+                out.getChannel().force(true);
+            }
+            writer.close();
+            if (binChannel != null) {
+                flushBinary();
+                if (durabil) {
+                    binChannel.force(true);
+                }
+                binChannel.close();
+            }
+        } catch (IOException e) {
+            System.err.println("Eroare la inchiderea audit.csv: " + e.getMessage());
+        }
+        writer = null;
+        out = null;
+        binChannel = null;
+        unflushed = 0;
+    }
+
+    // lungimea in octeti a textului codificat UTF-8, fara sa-l codificam efectiv
+    private static int utf8Length(String text) {
+        int octeti = 0;
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c < 0x80) {
+                octeti++;
+            } else if (c < 0x800) {
+                octeti += 2;
+            } else if (Character.isHighSurrogate(c) && i + 1 < text.length() && Character.isLowSurrogate(text.charAt(i + 1))) {
+                octeti += 4;
+                i++;
+            } else {
+                octeti += 3;
+            }
+        }
+        return octeti;
+    }
+
+    // timestamp-ul se formateaza o singura data pe secunda
+    private String format(long timestamp) {
+        long second = timestamp / 1000;
+        if (second != cachedSecond) {
+            cachedSecond = second;
+            LocalDateTime moment = LocalDateTime.ofInstant(Instant.ofEpochSecond(second), ZoneId.systemDefault());
+            cachedTimestamp = moment.format(FORMATTER);
+            cachedDay = moment.toLocalDate();
         }
+        return cachedTimestamp;
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,141 @@
+package withDB;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+// citeste segmentele binare scrise de Audit (audit-*.bin + audit.bin) mapate in memorie;
+// scanarea lucreaza direct pe buffer, fara obiecte alocate pe inregistrare
+public class AuditReader {
+    private static final long MILLIS_PER_HOUR = 3_600_000L;
+    // countPerOra intoarce cel mult un an de ore
+    static final int MAX_ORE = 366 * 24;
+    // cel mai mare multiplu de RECORD_SIZE care incape intr-o singura mapare
+    private static final long MAX_MAPARE = (Integer.MAX_VALUE / Audit.RECORD_SIZE) * (long) Audit.RECORD_SIZE;
+
+    private final Path director;
+    private final List<String> actiuni;
+
+    public interface RecordVisitor {
+        void visit(int actionId, long timestamp);
+    }
+
+    public AuditReader(Path director) throws IOException {
+        this.director = director;
+        Path dictionar = director.resolve(Audit.DICTIONARY_FILE);
+        this.actiuni = Files.exists(dictionar)
+            ? Files.readAllLines(dictionar, StandardCharsets.UTF_8)
+            : new ArrayList<>();
+    }
+
+    public int numarActiuni() {
+        return actiuni.size();
+    }
+
+    public String numeActiune(int actionId) {
+        return actiuni.get(actionId);
+    }
+
+    public int idActiune(String actionName) {
+        return actiuni.indexOf(actionName);
+    }
+
+    // toate inregistrarile cu from <= timestamp < to
+    public void scan(long from, long to, RecordVisitor visitor) throws IOException {
+        for (Path segment : segmente()) {
+            try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.READ)) {
+                long size = channel.size() - channel.size() % Audit.RECORD_SIZE;
+                for (long pozitie = 0; pozitie < size; pozitie += MAX_MAPARE) {
+                    MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, pozitie,
+                        Math.min(MAX_MAPARE, size - pozitie));
+                    while (buffer.remaining() >= Audit.RECORD_SIZE) {
+                        int actionId = buffer.getInt();
+                        long timestamp = buffer.getLong();
+                        if (timestamp >= from && timestamp < to) {
+                            visitor.visit(actionId, timestamp);
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    public long count(long from, long to) throws IOException {
+        long[] total = new long[1];
+        scan(from, to, (actionId, timestamp) -> total[0]++);
+        return total[0];
+    }
+
+    // numarul de inregistrari pentru o singura actiune
+    public long count(String actionName, long from, long to) throws IOException {
+        int cautat = idActiune(actionName);
+        if (cautat < 0) {
+            return 0;
+        }
+        long[] total = new long[1];
+        scan(from, to, (actionId, timestamp) -> {
+            if (actionId == cautat) {
+                total[0]++;
+            }
+        });
+        return total[0];
+    }
+
+    // rezultat[id] = numarul de inregistrari pentru actiunea cu id-ul respectiv
+    public long[] countPerActiune(long from, long to) throws IOException {
+        long[] rezultat = new long[actiuni.size()];
+        scan(from, to, (actionId, timestamp) -> {
+            if (actionId < rezultat.length) {
+                rezultat[actionId]++;
+            }
+        });
+        return rezultat;
+    }
+
+    // rezultat[h] = numarul de inregistrari din ora h a intervalului [from, to)
+    public long[] countPerOra(long from, long to) throws IOException {
+        if (from >= to) {
+            throw new IllegalArgumentException("Intervalul trebuie sa aiba from < to.");
+        }
+        // (to - from) poate depasi long pentru capete extreme, de aceea comparam in doi pasi
+        if (to - from < 0 || (to - from - 1) / MILLIS_PER_HOUR >= MAX_ORE) {
+            throw new IllegalArgumentException("Intervalul depaseste " + MAX_ORE + " de ore.");
+        }
+        long[] rezultat = new long[(int) ((to - from - 1) / MILLIS_PER_HOUR + 1)];
+        scan(from, to, (actionId, timestamp) -> rezultat[(int) ((timestamp - from) / MILLIS_PER_HOUR)]++);
+        return rezultat;
+    }
+
+    // arhivele in ordinea numelui (zi, apoi indice), segmentul activ la final
+    private List<Path> segmente() throws IOException {
+        List<Path> rezultat = new ArrayList<>();
+        String baza = Audit.BINARY_FILE.substring(0, Audit.BINARY_FILE.lastIndexOf('.'));
+        try (DirectoryStream<Path> dir = Files.newDirectoryStream(director, baza + "-*.bin")) {
+            dir.forEach(rezultat::add);
+        }
+        rezultat.sort((a, b) -> comparaSegmente(a.getFileName().toString(), b.getFileName().toString()));
+        Path activ = director.resolve(Audit.BINARY_FILE);
+        if (Files.exists(activ)) {
+            rezultat.add(activ);
+        }
+        return rezultat;
+    }
+
+    // audit-2026-10-18.10.bin trebuie sa vina dupa audit-2026-10-18.9.bin
+    private static int comparaSegmente(String a, String b) {
+        String[] pa = a.split("\\.");
+        String[] pb = b.split("\\.");
+        int cmp = pa[0].compareTo(pb[0]);
+        if (cmp != 0 || pa.length < 2 || pb.length < 2) {
+            return cmp != 0 ? cmp : a.compareTo(b);
+        }
+        return Integer.compare(Integer.parseInt(pa[1]), Integer.parseInt(pb[1]));
+    }
+}
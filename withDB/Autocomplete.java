@@ -0,0 +1,373 @@
+package withDB;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.Stream;
+
+// sugestii pe masura ce se tasteaza: un radix trie (muchiile poarta siruri, nu litere) peste
+// titluri si numele autorilor normalizate ca in CatalogIndex. Fiecare nod retine scorul maxim
+// din subarborele lui, deci primele k completari dupa popularitate (numarul de imprumuturi)
+// se gasesc explorand nodurile in ordinea acestui maxim, fara a parcurge tot subarborele.
+public class Autocomplete implements IndexCarti {
+    private static final char[] FARA_LITERE = new char[0];
+    private static final Nod[] FARA_COPII = new Nod[0];
+    private static final Sugestie[] FARA_INTRARI = new Sugestie[0];
+
+    private final Nod radacina = new Nod("");
+    // cheile din trie pentru fiecare carte / autor, pentru actualizari si stergeri
+    private final Map<Integer, String> cheiCarti = new HashMap<>();
+    private final Map<Integer, Sugestie> autori = new HashMap<>();
+    private final Map<Integer, Integer> autorCarte = new HashMap<>();
+    private final Map<Integer, Integer> numarCartiAutor = new HashMap<>();
+    private final Map<Integer, Integer> imprumuturi;
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    public static final class Sugestie {
+        private final String text;
+        private final boolean autor;
+        private final int id;
+        private int scor;
+
+        private Sugestie(String text, boolean autor, int id, int scor) {
+            this.text = text;
+            this.autor = autor;
+            this.id = id;
+            this.scor = scor;
+        }
+
+        public String getText() { return text; }
+        public boolean esteAutor() { return autor; }
+        public int getId() { return id; }
+        public int getScor() { return scor; }
+
+        @Override
+        public String toString() {
+            return (autor ? "autor: " : "carte: ") + text;
+        }
+    }
+
+    private static final class Nod {
+        private String eticheta;
+        // copiii ordonati dupa prima litera a etichetei
+        private char[] litere = FARA_LITERE;
+        private Nod[] copii = FARA_COPII;
+        private Sugestie[] intrari = FARA_INTRARI;
+        private int maxScor;
+
+        private Nod(String eticheta) {
+            this.eticheta = eticheta;
+        }
+
+        private int copil(char litera) {
+            return Arrays.binarySearch(litere, litera);
+        }
+
+        private void adaugaCopil(Nod copil) {
+            int poz = -copil(copil.eticheta.charAt(0)) - 1;
+            litere = Arrays.copyOf(litere, litere.length + 1);
+            copii = Arrays.copyOf(copii, copii.length + 1);
+            System.arraycopy(litere, poz, litere, poz + 1, litere.length - poz - 1);
+            System.arraycopy(copii, poz, copii, poz + 1, copii.length - poz - 1);
+            litere[poz] = copil.eticheta.charAt(0);
+            copii[poz] = copil;
+        }
+
+        private void stergeCopil(int poz) {
+            char[] l = new char[litere.length - 1];
+            Nod[] c = new Nod[copii.length - 1];
+            System.arraycopy(litere, 0, l, 0, poz);
+            System.arraycopy(litere, poz + 1, l, poz, l.length - poz);
+            System.arraycopy(copii, 0, c, 0, poz);
+            System.arraycopy(copii, poz + 1, c, poz, c.length - poz);
+            litere = l;
+            copii = c;
+        }
+    }
+
+    // imprumuturi: id carte -> numarul de imprumuturi (active si istorice)
+    public Autocomplete(Map<Integer, Integer> imprumuturi) {
+        this.imprumuturi = new HashMap<>(imprumuturi);
+    }
+
+    public static Autocomplete construieste(Stream<Carte> carti, Map<Integer, Integer> imprumuturi) {
+        Autocomplete autocomplete = new Autocomplete(imprumuturi);
+        carti.forEach(autocomplete::adauga);
+        return autocomplete;
+    }
+
+    @Override
+    public void adauga(Carte carte) {
+        lock.writeLock().lock();
+        try {
+            eliminaCarte(carte.getId());
+            int scor = imprumuturi.getOrDefault(carte.getId(), 0);
+            String cheie = cheie(carte.getNume());
+            if (cheie.isEmpty()) {
+                return;
+            }
+            cheiCarti.put(carte.getId(), cheie);
+            insereaza(cheie, new Sugestie(carte.getNume(), false, carte.getId(), scor));
+
+            Autor autor = carte.getAutor();
+            autorCarte.put(carte.getId(), autor.getId());
+            numarCartiAutor.merge(autor.getId(), 1, Integer::sum);
+            Sugestie sugestieAutor = autori.get(autor.getId());
+            if (sugestieAutor == null) {
+                sugestieAutor = new Sugestie(autor.getPrenume() + " " + autor.getNume(), true, autor.getId(), 0);
+                autori.put(autor.getId(), sugestieAutor);
+                insereaza(cheie(sugestieAutor.text), sugestieAutor);
+            }
+            if (scor > 0) {
+                maresteScor(cheie(sugestieAutor.text), sugestieAutor, scor);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void actualizeaza(Carte carte) {
+        adauga(carte);
+    }
+
+    @Override
+    public void elimina(int idCarte) {
+        lock.writeLock().lock();
+        try {
+            eliminaCarte(idCarte);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void eliminaAutor(int idAutor) {
+        lock.writeLock().lock();
+        try {
+            List<Integer> cartiAutor = new ArrayList<>();
+            autorCarte.forEach((idCarte, autor) -> {
+                if (autor == idAutor) {
+                    cartiAutor.add(idCarte);
+                }
+            });
+            cartiAutor.forEach(this::eliminaCarte);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void actualizeazaAutor(Autor autor) {
+        lock.writeLock().lock();
+        try {
+            Sugestie vechi = autori.remove(autor.getId());
+            if (vechi == null) {
+                return;
+            }
+            scoate(radacina, cheie(vechi.text), 0, vechi);
+            Sugestie noua = new Sugestie(autor.getPrenume() + " " + autor.getNume(), true, autor.getId(), vechi.scor);
+            autori.put(autor.getId(), noua);
+            insereaza(cheie(noua.text), noua);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // popularitatea cartii (si a autorului ei) dupa un imprumut nou; numarul vine din baza si
+    // doar creste, deci se pastreaza maximul: aplicat de doua ori sau ajuns dupa unul mai nou,
+    // nu schimba nimic
+    @Override
+    public void imprumuturiNumarate(int idCarte, int numar) {
+        lock.writeLock().lock();
+        try {
+            int vechi = imprumuturi.getOrDefault(idCarte, 0);
+            if (numar <= vechi) {
+                return;
+            }
+            imprumuturi.put(idCarte, numar);
+            String cheie = cheiCarti.get(idCarte);
+            if (cheie == null) {
+                return;
+            }
+            maresteScor(cheie, cauta(cheie, false, idCarte), numar - vechi);
+            Sugestie autor = autori.get(autorCarte.get(idCarte));
+            maresteScor(cheie(autor.text), autor, numar - vechi);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // cele mai populare k completari ale prefixului
+    public List<Sugestie> sugereaza(String prefix, int k) {
+        List<Sugestie> rezultat = new ArrayList<>(k);
+        String cautat = cheie(prefix);
+        lock.readLock().lock();
+        try {
+            Nod nod = radacina;
+            int i = 0;
+            while (i < cautat.length()) {
+                int poz = nod.copil(cautat.charAt(i));
+                if (poz < 0) {
+                    return rezultat;
+                }
+                nod = nod.copii[poz];
+                int comun = prefixComun(nod.eticheta, cautat, i);
+                if (comun < nod.eticheta.length() && i + comun < cautat.length()) {
+                    return rezultat;
+                }
+                i += comun;
+            }
+
+            // coada cu noduri (dupa scorul maxim din subarbore) si sugestii (dupa scorul propriu)
+            PriorityQueue<Object[]> coada = new PriorityQueue<>((a, b) -> Integer.compare((int) b[0], (int) a[0]));
+            coada.add(new Object[] { nod.maxScor, nod });
+            while (!coada.isEmpty() && rezultat.size() < k) {
+                Object element = coada.poll()[1];
+                if (element instanceof Sugestie) {
+                    rezultat.add((Sugestie) element);
+                    continue;
+                }
+                Nod curent = (Nod) element;
+                for (Sugestie sugestie : curent.intrari) {
+                    coada.add(new Object[] { sugestie.scor, sugestie });
+                }
+                for (Nod copil : curent.copii) {
+                    coada.add(new Object[] { copil.maxScor, copil });
+                }
+            }
+            return rezultat;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return cheiCarti.size() + autori.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void eliminaCarte(int idCarte) {
+        String cheie = cheiCarti.remove(idCarte);
+        if (cheie == null) {
+            return;
+        }
+        scoate(radacina, cheie, 0, cauta(cheie, false, idCarte));
+        Integer idAutor = autorCarte.remove(idCarte);
+        Sugestie autor = autori.get(idAutor);
+        int scor = imprumuturi.getOrDefault(idCarte, 0);
+        if (numarCartiAutor.merge(idAutor, -1, Integer::sum) == 0) {
+            numarCartiAutor.remove(idAutor);
+            autori.remove(idAutor);
+            scoate(radacina, cheie(autor.text), 0, autor);
+        } else if (scor > 0) {
+            // maxScor-urile de pe drum raman limite superioare, ceea ce e suficient pentru cautare
+            autor.scor -= scor;
+        }
+    }
+
+    private void insereaza(String cheie, Sugestie sugestie) {
+        Nod nod = radacina;
+        nod.maxScor = Math.max(nod.maxScor, sugestie.scor);
+        int i = 0;
+        while (i < cheie.length()) {
+            int poz = nod.copil(cheie.charAt(i));
+            if (poz < 0) {
+                Nod frunza = new Nod(cheie.substring(i));
+                nod.adaugaCopil(frunza);
+                nod = frunza;
+                break;
+            }
+            Nod copil = nod.copii[poz];
+            int comun = prefixComun(copil.eticheta, cheie, i);
+            if (comun < copil.eticheta.length()) {
+                // muchia se imparte: partea comuna devine un nod intermediar
+                Nod mijloc = new Nod(copil.eticheta.substring(0, comun));
+                mijloc.maxScor = copil.maxScor;
+                copil.eticheta = copil.eticheta.substring(comun);
+                mijloc.litere = new char[] { copil.eticheta.charAt(0) };
+                mijloc.copii = new Nod[] { copil };
+                nod.copii[poz] = mijloc;
+                copil = mijloc;
+            }
+            nod = copil;
+            nod.maxScor = Math.max(nod.maxScor, sugestie.scor);
+            i += comun;
+        }
+        nod.maxScor = Math.max(nod.maxScor, sugestie.scor);
+        nod.intrari = Arrays.copyOf(nod.intrari, nod.intrari.length + 1);
+        nod.intrari[nod.intrari.length - 1] = sugestie;
+    }
+
+    // intoarce true daca nodul a ramas fara intrari si fara copii
+    private boolean scoate(Nod nod, String cheie, int i, Sugestie sugestie) {
+        if (i == cheie.length()) {
+            List<Sugestie> ramase = new ArrayList<>(Arrays.asList(nod.intrari));
+            ramase.remove(sugestie);
+            nod.intrari = ramase.toArray(FARA_INTRARI);
+        } else {
+            int poz = nod.copil(cheie.charAt(i));
+            if (poz >= 0) {
+                Nod copil = nod.copii[poz];
+                if (scoate(copil, cheie, i + copil.eticheta.length(), sugestie)) {
+                    nod.stergeCopil(poz);
+                } else if (copil.intrari.length == 0 && copil.copii.length == 1) {
+                    // un nod fara intrari cu un singur copil se contopeste cu el
+                    Nod nepot = copil.copii[0];
+                    nepot.eticheta = copil.eticheta + nepot.eticheta;
+                    nod.copii[poz] = nepot;
+                }
+            }
+        }
+        return nod != radacina && nod.intrari.length == 0 && nod.copii.length == 0;
+    }
+
+    private Sugestie cauta(String cheie, boolean autor, int id) {
+        Nod nod = radacina;
+        int i = 0;
+        while (i < cheie.length()) {
+            nod = nod.copii[nod.copil(cheie.charAt(i))];
+            i += nod.eticheta.length();
+        }
+        for (Sugestie sugestie : nod.intrari) {
+            if (sugestie.autor == autor && sugestie.id == id) {
+                return sugestie;
+            }
+        }
+        return null;
+    }
+
+    private void maresteScor(String cheie, Sugestie sugestie, int cu) {
+        sugestie.scor += cu;
+        Nod nod = radacina;
+        nod.maxScor = Math.max(nod.maxScor, sugestie.scor);
+        int i = 0;
+        while (i < cheie.length()) {
+            nod = nod.copii[nod.copil(cheie.charAt(i))];
+            nod.maxScor = Math.max(nod.maxScor, sugestie.scor);
+            i += nod.eticheta.length();
+        }
+    }
+
+    private static int prefixComun(String eticheta, String cheie, int de) {
+        int n = Math.min(eticheta.length(), cheie.length() - de);
+        int i = 0;
+        while (i < n && eticheta.charAt(i) == cheie.charAt(de + i)) {
+            i++;
+        }
+        return i;
+    }
+
+    // aceeasi normalizare ca in CatalogIndex, cu cuvintele unite printr-un spatiu
+    static String cheie(String text) {
+        return String.join(" ", CatalogIndex.tokenizeaza(text));
+    }
+}
@@ -1,28 +1,45 @@
 package withDB;
 
-import java.sql.Connection;
-import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
-import java.sql.Statement;
 
 public class AutorService {
     private static AutorService instance;
     private final CRUDService<Autor> crudService;
     private static final String TABLE_NAME = "autori"; // Consistent table name
-    
+    private static final int CACHE_SIZE = Integer.getInteger("biblioteca.cache.size", 1000);
+
+    // autorii se schimba rar, asa ca lookup-urile trec printr-un cache invalidat la scriere
+    private final LruCache<Integer, Autor> cacheDupaId = new LruCache<>(CACHE_SIZE);
+    private final LruCache<String, Autor> cacheDupaNume = new LruCache<>(CACHE_SIZE);
+
+    private final CRUDService.ResultSetMapper<Autor> autorMapper = new CRUDService.ResultSetMapper<Autor>() {
+        @Override
+        public Autor map(ResultSet rs) throws SQLException {
+            Autor autor = new Autor(
+                rs.getString("prenume"),
+                rs.getString("nume"),
+                rs.getString("nationalitate")
+            );
+            autor.setId(rs.getInt("id"));
+            return autor;
+        }
+    };
+
     private AutorService() {
         crudService = CRUDService.getInstance();
     }
-    
+
     public static synchronized AutorService getInstance() {
         if (instance == null) {
             instance = new AutorService();
         }
         return instance;
     }
-    
+
     // creare tabel
     public void createTable() {
         String query = "CREATE TABLE IF NOT EXISTS " + TABLE_NAME + " (" +
@@ -31,99 +48,134 @@ public class AutorService {
                        "nume VARCHAR(50) NOT NULL, " +
                        "nationalitate VARCHAR(50) NOT NULL)";
         crudService.executeUpdate(query);
+
+        // index pentru cautarea cartilor dupa numele autorului (fara majuscule)
+        crudService.executeUpdate("ALTER TABLE " + TABLE_NAME + " ADD COLUMN IF NOT EXISTS nume_cautare VARCHAR(50) " +
+                                  "GENERATED ALWAYS AS (LOWER(nume))");
+        crudService.executeUpdate("CREATE INDEX IF NOT EXISTS idx_autori_nume ON " + TABLE_NAME + "(nume_cautare)");
     }
-    
+
     // adaugare autor
     public void adaugaAutor(Autor autor) {
-        String query = String.format("INSERT INTO " + TABLE_NAME + " (prenume, nume, nationalitate) " +
-                                   "VALUES ('%s', '%s', '%s')",
-                                   autor.getPrenume(), autor.getNume(), autor.getNationalitate());
-        crudService.executeUpdate(query);
+        String query = "INSERT INTO " + TABLE_NAME + " (prenume, nume, nationalitate) VALUES (?, ?, ?)";
+        int id = crudService.executeInsert(query, autor.getPrenume(), autor.getNume(), autor.getNationalitate());
+        if (id > 0) {
+            autor.setId(id);
+            StatisticiService.getInstance().invalideaza();
+        }
     }
-    
+
+    // adaugare autori in lot; intoarce id-urile in ordinea colectiei
+    public int[] adaugaAutori(Collection<Autor> autori) {
+        List<Object[]> randuri = new ArrayList<>(autori.size());
+        for (Autor autor : autori) {
+            randuri.add(new Object[] { autor.getPrenume(), autor.getNume(), autor.getNationalitate() });
+        }
+        int[] ids = crudService.executeBatch(
+            "INSERT INTO " + TABLE_NAME + " (prenume, nume, nationalitate) VALUES (?, ?, ?)", randuri);
+        int i = 0;
+        for (Autor autor : autori) {
+            if (ids[i] > 0) {
+                autor.setId(ids[i]);
+            }
+            i++;
+        }
+        StatisticiService.getInstance().invalideaza();
+        return ids;
+    }
+
     // obtinere toti autorii
     public List<Autor> getTotiAutorii() {
         String query = "SELECT * FROM " + TABLE_NAME;
-        return crudService.executeQuery(query, new CRUDService.ResultSetMapper<Autor>() {
-            @Override
-            public Autor map(ResultSet rs) throws SQLException {
-                Autor autor = new Autor(
-                    rs.getString("prenume"),
-                    rs.getString("nume"),
-                    rs.getString("nationalitate")
-                );
-                autor.setId(rs.getInt("id"));
-                return autor;
-            }
-        });
+        return crudService.executeQuery(query, autorMapper);
     }
-    
+
+    // pagina de autori cu id > dupaId; prima pagina se cere cu dupaId = 0
+    public Pagina<Autor> getAutoriPagina(int dupaId, int limita) {
+        return crudService.executePage("SELECT * FROM " + TABLE_NAME, "id", autorMapper, Autor::getId, dupaId, limita);
+    }
+
     // update autor
     public void actualizeazaAutor(Autor autor) {
-        String query = String.format("UPDATE " + TABLE_NAME + " SET prenume='%s', nume='%s', nationalitate='%s' WHERE id=%d",
-                                   autor.getPrenume(), autor.getNume(), autor.getNationalitate(), autor.getId());
-        crudService.executeUpdate(query);
+        String query = "UPDATE " + TABLE_NAME + " SET prenume=?, nume=?, nationalitate=? WHERE id=?";
+        crudService.executeUpdate(query, autor.getPrenume(), autor.getNume(), autor.getNationalitate(), autor.getId());
+        invalideaza(autor.getId());
+        CarteService.getInstance().autorActualizat(autor);
+        StatisticiService.getInstance().invalideaza();
     }
-    
+
     // sterge autor
     public void stergeAutor(int idAutor) {
-        String query = String.format("DELETE FROM " + TABLE_NAME + " WHERE id=%d", idAutor);
-        crudService.executeUpdate(query);
+        String query = "DELETE FROM " + TABLE_NAME + " WHERE id=?";
+        crudService.executeUpdate(query, idAutor);
+        invalideaza(idAutor);
+        StatisticiService.getInstance().invalideaza();
+    }
+
+    public void stergeAutor(Tranzactie tx, int idAutor) throws SQLException {
+        tx.update("DELETE FROM " + TABLE_NAME + " WHERE id=?", idAutor);
+        tx.dupaCommit(() -> invalideaza(idAutor));
+        tx.dupaCommit(StatisticiService.getInstance()::invalideaza);
     }
-    
+
     public int countAutori() {
-        String sql = "SELECT COUNT(*) FROM " + TABLE_NAME;
-        try (Connection conn = DatabaseConnection.getConnection();
-            Statement stmt = conn.createStatement();
-            ResultSet rs = stmt.executeQuery(sql)) {
-            if (rs.next()) {
-                return rs.getInt(1);
-            }
-        } catch (SQLException e) {
-            e.printStackTrace();
-        }
-        return 0;
+        return crudService.executeCount("SELECT COUNT(*) FROM " + TABLE_NAME);
     }
 
+    // cache-ul tine instantele lui; apelantii primesc copii pe care le pot modifica
     public Autor getAutorByNumeComplet(String prenume, String nume) {
-        String sql = "SELECT * FROM autori WHERE prenume = ? AND nume = ?";
-        try (Connection conn = DatabaseConnection.getConnection();
-            PreparedStatement pstmt = conn.prepareStatement(sql)) {
-            pstmt.setString(1, prenume);
-            pstmt.setString(2, nume);
-            try (ResultSet rs = pstmt.executeQuery()) {
-                if (rs.next()) {
-                    Autor autor = new Autor(
-                        rs.getString("prenume"),
-                        rs.getString("nume"),
-                        rs.getString("nationalitate")
-                    );
-                    autor.setId(rs.getInt("id"));
-                    return autor;
-                }
+        String sql = "SELECT * FROM " + TABLE_NAME + " WHERE prenume = ? AND nume = ?";
+        String cheie = cheieNume(prenume, nume);
+        Autor autor = cacheDupaNume.get(cheie);
+        if (autor == null) {
+            long versiuneId = cacheDupaId.getVersion();
+            long versiuneNume = cacheDupaNume.getVersion();
+            List<Autor> autori = crudService.executeQuery(sql, autorMapper, prenume, nume);
+            autor = autori.isEmpty() ? null : autori.get(0);
+            if (autor != null) {
+                cacheDupaNume.putIfVersion(cheie, autor, versiuneNume);
+                cacheDupaId.putIfVersion(autor.getId(), autor, versiuneId);
             }
-        } catch (SQLException e) {
-            e.printStackTrace();
         }
-        return null;
+        return copie(autor);
     }
-    
+
     // autor dupa ID
     public Autor getAutorById(int id) {
-        String query = "SELECT * FROM " + TABLE_NAME + " WHERE id=" + id;
-        List<Autor> autori = crudService.executeQuery(query, new CRUDService.ResultSetMapper<Autor>() {
-            @Override
-            public Autor map(ResultSet rs) throws SQLException {
-                Autor autor = new Autor(
-                    rs.getString("prenume"),
-                    rs.getString("nume"),
-                    rs.getString("nationalitate")
-                );
-                autor.setId(rs.getInt("id"));
-                return autor;
+        String query = "SELECT * FROM " + TABLE_NAME + " WHERE id=?";
+        Autor autor = cacheDupaId.get(id);
+        if (autor == null) {
+            long versiuneId = cacheDupaId.getVersion();
+            long versiuneNume = cacheDupaNume.getVersion();
+            List<Autor> autori = crudService.executeQuery(query, autorMapper, id);
+            autor = autori.isEmpty() ? null : autori.get(0);
+            if (autor != null) {
+                cacheDupaId.putIfVersion(id, autor, versiuneId);
+                cacheDupaNume.putIfVersion(cheieNume(autor.getPrenume(), autor.getNume()), autor, versiuneNume);
             }
-        });
-        
-        return autori.isEmpty() ? null : autori.get(0);
+        }
+        return copie(autor);
+    }
+
+    private static Autor copie(Autor autor) {
+        if (autor == null) {
+            return null;
+        }
+        Autor copie = new Autor(autor.getPrenume(), autor.getNume(), autor.getNationalitate());
+        copie.setId(autor.getId());
+        return copie;
+    }
+
+    public String getStatisticiCache() {
+        return "autori dupa id: " + cacheDupaId + "; autori dupa nume: " + cacheDupaNume;
+    }
+
+    private void invalideaza(int idAutor) {
+        cacheDupaId.invalidate(idAutor);
+        cacheDupaNume.invalidateIf(a -> a.getId() == idAutor);
+    }
+
+    private static String cheieNume(String prenume, String nume) {
+        return prenume + '\u0000' + nume;
     }
-}
\ No newline at end of file
+}
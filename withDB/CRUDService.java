@@ -2,46 +2,281 @@ package withDB;
 
 import java.sql.*;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.Consumer;
+import java.util.function.ToIntFunction;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 
 public class CRUDService<T> {
     private static CRUDService<?> instance;
-    
+    // numarul de randuri trimise si confirmate (commit) odata in executeBatch
+    private static final int BATCH_SIZE = Integer.getInteger("biblioteca.batch.size", 1000);
+    // cate randuri cere driverul odata cand rezultatul este parcurs cu stream()
+    private static final int FETCH_SIZE = Integer.getInteger("biblioteca.fetchSize", 500);
+
     private CRUDService() {}
-    
+
     public static synchronized <T> CRUDService<T> getInstance() {
         if (instance == null) {
             instance = new CRUDService<>();
         }
         return (CRUDService<T>) instance;
     }
-    
-    public List<T> executeQuery(String query, ResultSetMapper<T> mapper) {
+
+    public List<T> executeQuery(String query, ResultSetMapper<T> mapper, Object... params) {
         List<T> results = new ArrayList<>();
-        try (Connection conn = DatabaseConnection.getInstance().getConnection();
-             Statement stmt = conn.createStatement();
-             ResultSet rs = stmt.executeQuery(query)) {
-            
-            while (rs.next()) {
-                results.add(mapper.map(rs));
+        IdentityMap identitati = new IdentityMap();
+        try (Connection conn = DatabaseConnection.getConnection()) {
+            PreparedStatement stmt = DatabaseConnection.prepareCached(conn, query, false);
+            bind(stmt, params);
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    results.add(mapper.map(rs, identitati));
+                }
             }
         } catch (SQLException e) {
             System.out.println("Eroare query: " + e.getMessage());
         }
         return results;
     }
-    
-    public void executeUpdate(String sql) {
-        try (Connection conn = DatabaseConnection.getConnection();
-            Statement stmt = conn.createStatement()) {
-            stmt.executeUpdate(sql);
+
+    public int executeUpdate(String sql, Object... params) {
+        try (Connection conn = DatabaseConnection.getConnection()) {
+            PreparedStatement stmt = DatabaseConnection.prepareCached(conn, sql, false);
+            bind(stmt, params);
+            return stmt.executeUpdate();
         } catch (SQLException e) {
             System.err.println("Eroare update: " + e.getMessage());
         }
+        return 0;
+    }
+
+    // parcurge rezultatul rand cu rand, fara a-l colecta intr-o lista; intoarce false daca
+    // interogarea a esuat (eroarea este afisata), ca apelantul sa deosebeasca un rezultat gol
+    // de unul incomplet
+    public boolean forEachRow(String query, RowCallback callback, Object... params) {
+        IdentityMap identitati = new IdentityMap();
+        try (Connection conn = DatabaseConnection.getConnection()) {
+            PreparedStatement stmt = DatabaseConnection.prepareCached(conn, query, false);
+            bind(stmt, params);
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    callback.row(rs, identitati);
+                }
+            }
+            return true;
+        } catch (SQLException e) {
+            System.out.println("Eroare query: " + e.getMessage());
+            return false;
+        }
+    }
+
+    // paginare dupa cheie: urmatoarele `limita` randuri cu coloanaId > dupaId, fara OFFSET;
+    // se cere un rand in plus ca sa stim daca mai exista o pagina
+    public Pagina<T> executePage(String select, String coloanaId, ResultSetMapper<T> mapper,
+                                 ToIntFunction<T> id, int dupaId, int limita) {
+        if (limita <= 0) {
+            throw new IllegalArgumentException("Limita paginii trebuie sa fie pozitiva");
+        }
+        String query = select + " WHERE " + coloanaId + " > ? ORDER BY " + coloanaId + " LIMIT ?";
+        List<T> elemente = executeQuery(query, mapper, dupaId, limita + 1);
+        if (elemente.size() <= limita) {
+            return new Pagina<>(elemente, null);
+        }
+        elemente.remove(limita);
+        return new Pagina<>(elemente, id.applyAsInt(elemente.get(limita - 1)));
+    }
+
+    // rezultatul ca Stream citit rand cu rand; conexiunea ramane ocupata pana cand
+    // stream-ul este parcurs complet sau inchis, deci se foloseste in try-with-resources.
+    // o eroare (inclusiv timeout la pool) arunca IllegalStateException, ca un apelant care
+    // construieste ceva din rezultat sa nu confunde esecul cu un tabel gol
+    public Stream<T> stream(String query, ResultSetMapper<T> mapper, Object... params) {
+        Connection conn = null;
+        try {
+            conn = DatabaseConnection.getConnection();
+            PreparedStatement stmt = DatabaseConnection.prepareCached(conn, query, false);
+            stmt.setFetchSize(FETCH_SIZE);
+            bind(stmt, params);
+            RowSpliterator<T> rows = new RowSpliterator<>(conn, stmt.executeQuery(), mapper);
+            return StreamSupport.stream(rows, false).onClose(rows::close);
+        } catch (SQLException e) {
+            if (conn != null) {
+                try {
+                    conn.close();
+                } catch (SQLException ignored) {
+                    // conexiunea se intoarce oricum in pool
+                }
+            }
+            throw new IllegalStateException("Eroare query: " + e.getMessage(), e);
+        }
+    }
+
+    private static final class RowSpliterator<T> extends Spliterators.AbstractSpliterator<T> {
+        private final Connection conn;
+        private final ResultSet rs;
+        private final ResultSetMapper<T> mapper;
+        private final IdentityMap identitati = new IdentityMap();
+        private boolean closed;
+
+        private RowSpliterator(Connection conn, ResultSet rs, ResultSetMapper<T> mapper) {
+            super(Long.MAX_VALUE, Spliterator.ORDERED | Spliterator.NONNULL);
+            this.conn = conn;
+            this.rs = rs;
+            this.mapper = mapper;
+        }
+
+        @Override
+        public boolean tryAdvance(Consumer<? super T> action) {
+            if (closed) {
+                return false;
+            }
+            try {
+                if (!rs.next()) {
+                    close();
+                    return false;
+                }
+                action.accept(mapper.map(rs, identitati));
+                return true;
+            } catch (SQLException e) {
+                close();
+                throw new IllegalStateException("Eroare query: " + e.getMessage(), e);
+            }
+        }
+
+        private void close() {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            try {
+                rs.close();
+            } catch (SQLException ignored) {
+                // inchiderea conexiunii elibereaza oricum rezultatul
+            }
+            try {
+                conn.close();
+            } catch (SQLException e) {
+                System.out.println("Eroare la închidere: " + e.getMessage());
+            }
+        }
     }
-    
+
+    // INSERT care intoarce id-ul generat (sau -1 la eroare)
+    public int executeInsert(String sql, Object... params) {
+        try (Connection conn = DatabaseConnection.getConnection()) {
+            PreparedStatement stmt = DatabaseConnection.prepareCached(conn, sql, true);
+            bind(stmt, params);
+            stmt.executeUpdate();
+            try (ResultSet rs = stmt.getGeneratedKeys()) {
+                if (rs.next()) {
+                    return rs.getInt(1);
+                }
+            }
+        } catch (SQLException e) {
+            System.err.println("Eroare insert: " + e.getMessage());
+        }
+        return -1;
+    }
+
+    // SELECT COUNT(*) si alte interogari cu un singur numar
+    public int executeCount(String sql, Object... params) {
+        try (Connection conn = DatabaseConnection.getConnection()) {
+            PreparedStatement stmt = DatabaseConnection.prepareCached(conn, sql, false);
+            bind(stmt, params);
+            try (ResultSet rs = stmt.executeQuery()) {
+                if (rs.next()) {
+                    return rs.getInt(1);
+                }
+            }
+        } catch (SQLException e) {
+            System.out.println("Eroare query: " + e.getMessage());
+        }
+        return 0;
+    }
+
+    public int[] executeBatch(String sql, List<Object[]> rows) {
+        return executeBatch(sql, rows, BATCH_SIZE);
+    }
+
+    // INSERT in loturi de batchSize randuri, un commit pe lot; intoarce id-urile generate
+    // in ordinea randurilor (-1 pentru randurile care nu au fost salvate)
+    public int[] executeBatch(String sql, List<Object[]> rows, int batchSize) {
+        int[] ids = new int[rows.size()];
+        Arrays.fill(ids, -1);
+        int salvate = 0;
+        try (Connection conn = DatabaseConnection.getConnection()) {
+            conn.setAutoCommit(false);
+            PreparedStatement stmt = DatabaseConnection.prepareCached(conn, sql, true);
+            try {
+                int[] lot = new int[Math.min(Math.max(batchSize, 1), rows.size())];
+                while (salvate < rows.size()) {
+                    int sfarsit = Math.min(salvate + lot.length, rows.size());
+                    for (int i = salvate; i < sfarsit; i++) {
+                        bind(stmt, rows.get(i));
+                        stmt.addBatch();
+                    }
+                    stmt.executeBatch();
+                    int n = 0;
+                    try (ResultSet rs = stmt.getGeneratedKeys()) {
+                        while (rs.next() && n < sfarsit - salvate) {
+                            lot[n++] = rs.getInt(1);
+                        }
+                    }
+                    conn.commit();
+                    System.arraycopy(lot, 0, ids, salvate, n);
+                    salvate = sfarsit;
+                }
+            } catch (SQLException e) {
+                stmt.clearBatch();
+                conn.rollback();
+                throw e;
+            }
+        } catch (SQLException e) {
+            System.err.println("Eroare batch (" + salvate + " randuri salvate): " + e.getMessage());
+        }
+        return ids;
+    }
+
+    // ruleaza lucrul intr-o singura tranzactie si intoarce rezultatul lui; la SQLException se
+    // face rollback si se intoarce null, exceptiile runtime fac rollback si sunt propagate
+    public <R> R inTranzactie(UnitateDeLucru<R> lucru) {
+        try (Tranzactie tx = new Tranzactie()) {
+            R rezultat = lucru.executa(tx);
+            tx.commit();
+            return rezultat;
+        } catch (SQLException e) {
+            System.err.println("Eroare tranzactie: " + e.getMessage());
+        }
+        return null;
+    }
+
+    static void bind(PreparedStatement stmt, Object... params) throws SQLException {
+        for (int i = 0; i < params.length; i++) {
+            stmt.setObject(i + 1, params[i]);
+        }
+    }
+
+    public interface UnitateDeLucru<R> {
+        R executa(Tranzactie tx) throws SQLException;
+    }
+
+    public interface RowCallback {
+        void row(ResultSet rs, IdentityMap identitati) throws SQLException;
+    }
+
     public interface ResultSetMapper<T> {
         T map(ResultSet rs) throws SQLException;
+
+        // varianta apelata de executeQuery; mapper-ele care construiesc entitati
+        // partajate (autor, sectiune) o suprascriu ca sa foloseasca identity map-ul
+        default T map(ResultSet rs, IdentityMap identitati) throws SQLException {
+            return map(rs);
+        }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,11 @@
+package withDB;
+
+// cartea este deja imprumutata (sau altcineva a imprumutat-o intre verificare si rezervare);
+// un conflict pe care apelantul il poate rezolva alegand alta carte, spre deosebire de erorile bazei de date
+public class CarteIndisponibilaException extends IllegalStateException {
+    private static final long serialVersionUID = 1L;
+
+    public CarteIndisponibilaException(String mesaj) {
+        super(mesaj);
+    }
+}
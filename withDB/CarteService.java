@@ -1,27 +1,145 @@
 package withDB;
 
-import java.sql.Connection;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
 import java.util.List;
-import java.sql.Statement;
-import java.sql.PreparedStatement;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
 
 public class CarteService {
     private static CarteService instance;
     private final CRUDService<Carte> crudService;
-    
+    // construite la prima cautare; dupa aceea se actualizeaza la fiecare scriere
+    private volatile CatalogIndex catalog;
+    private volatile Autocomplete autocomplete;
+    private volatile IndexAtribute indexAtribute;
+    private final List<IndexCarti> indexuri = new CopyOnWriteArrayList<>();
+    // notificarile catre indexuri iau lock-ul de citire; cel de scriere se ia doar scurt, la
+    // inceputul si la publicarea unei constructii, niciodata cat timp se asteapta o conexiune
+    private final ReentrantReadWriteLock lockIndexuri = new ReentrantReadWriteLock();
+    // notificarile primite cat timp se construieste un index, reaplicate peste el la publicare
+    private volatile Queue<Consumer<IndexCarti>> notificariInConstructie;
+
+    private static final String SELECT_CARTI = "SELECT c.*, " +
+                        "a.prenume AS autor_prenume, a.nume AS autor_nume, a.nationalitate AS autor_nationalitate, " +
+                        "s.nume_sectiune, s.locatie " +
+                        "FROM carti c " +
+                        "JOIN autori a ON c.id_autor = a.id " +
+                        "JOIN sectiuni s ON c.id_sectiune = s.id";
+    private static final int LOT_IDURI = 1000;
+    private static final String MARCHEAZA_IMPRUMUTATA =
+                        "UPDATE carti SET este_disponibil = FALSE WHERE id = ? AND este_disponibil = TRUE";
+    private static final String MARCHEAZA_RETURNATA =
+                        "UPDATE carti SET este_disponibil = TRUE WHERE id = ? AND este_disponibil = FALSE";
+    private static final String CARTI_IMPRUMUTATE_CITITOR =
+                        "SELECT id_carte FROM imprumuturi WHERE id_cititor = ? AND activ = TRUE";
+
+    // autorul si sectiunea din coloanele JOIN-ului
+    private final CRUDService.ResultSetMapper<Autor> autorDinRand = new CRUDService.ResultSetMapper<Autor>() {
+        @Override
+        public Autor map(ResultSet rs) throws SQLException {
+            return map(rs, new IdentityMap());
+        }
+
+        @Override
+        public Autor map(ResultSet rs, IdentityMap identitati) throws SQLException {
+            Autor autor = new Autor(
+                rs.getString("autor_prenume"),
+                rs.getString("autor_nume"),
+                identitati.intern(rs.getString("autor_nationalitate"))
+            );
+            autor.setId(rs.getInt("id_autor"));
+            return autor;
+        }
+    };
+
+    private final CRUDService.ResultSetMapper<Sectiune> sectiuneDinRand = new CRUDService.ResultSetMapper<Sectiune>() {
+        @Override
+        public Sectiune map(ResultSet rs) throws SQLException {
+            return map(rs, new IdentityMap());
+        }
+
+        @Override
+        public Sectiune map(ResultSet rs, IdentityMap identitati) throws SQLException {
+            Sectiune sectiune = new Sectiune(
+                identitati.intern(rs.getString("nume_sectiune")),
+                identitati.intern(rs.getString("locatie"))
+            );
+            sectiune.setId(rs.getInt("id_sectiune"));
+            return sectiune;
+        }
+    };
+
+    private final CRUDService.ResultSetMapper<Carte> carteMapper = new CRUDService.ResultSetMapper<Carte>() {
+        @Override
+        public Carte map(ResultSet rs) throws SQLException {
+            return map(rs, new IdentityMap());
+        }
+
+        @Override
+        public Carte map(ResultSet rs, IdentityMap identitati) throws SQLException {
+            Autor autor = identitati.resolve(Autor.class, rs.getInt("id_autor"), autorDinRand, rs);
+            Sectiune sectiune = identitati.resolve(Sectiune.class, rs.getInt("id_sectiune"), sectiuneDinRand, rs);
+
+            Carte carte;
+            String tipCarte = rs.getString("tip_carte");
+            if ("ROMAN".equals(tipCarte)) {
+                carte = new Roman(
+                    rs.getString("nume"),
+                    autor,
+                    sectiune,
+                    rs.getInt("an_publicatie"),
+                    identitati.intern(rs.getString("gen_literar")),
+                    rs.getInt("numar_pagini")
+                );
+            } else if ("EDITIE".equals(tipCarte)) {
+                carte = new EditieSpeciala(
+                    rs.getString("nume"),
+                    autor,
+                    sectiune,
+                    rs.getInt("an_publicatie"),
+                    identitati.intern(rs.getString("tip_editie")),
+                    rs.getInt("numar_exemplare")
+                );
+            } else {
+                carte = new Carte(
+                    rs.getString("nume"),
+                    autor,
+                    sectiune,
+                    rs.getInt("an_publicatie")
+                );
+            }
+            carte.setEsteDisponibil(rs.getBoolean("este_disponibil"));
+            carte.setId(rs.getInt("id"));
+            return carte;
+        }
+    };
+
+    // folosit de ImprumutService, ale carui interogari includ aceleasi coloane ca SELECT_CARTI
+    CRUDService.ResultSetMapper<Carte> getCarteMapper() {
+        return carteMapper;
+    }
+
     private CarteService() {
         crudService = CRUDService.getInstance();
     }
-    
+
     public static synchronized CarteService getInstance() {
         if (instance == null) {
             instance = new CarteService();
         }
         return instance;
     }
-    
+
     // creare tabel
     public void createTable() {
         String query = "CREATE TABLE IF NOT EXISTS carti (" +
@@ -39,201 +157,382 @@ public class CarteService {
                        "FOREIGN KEY (id_autor) REFERENCES autori(id), " +
                        "FOREIGN KEY (id_sectiune) REFERENCES sectiuni(id))";
         crudService.executeUpdate(query);
+
+        // indecsi pentru cautari; cautarea dupa nume nu tine cont de majuscule,
+        // deci se indexeaza o coloana calculata LOWER(nume)
+        crudService.executeUpdate("ALTER TABLE carti ADD COLUMN IF NOT EXISTS nume_cautare VARCHAR(100) " +
+                                  "GENERATED ALWAYS AS (LOWER(nume))");
+        crudService.executeUpdate("CREATE INDEX IF NOT EXISTS idx_carti_nume ON carti(nume_cautare)");
+        crudService.executeUpdate("CREATE INDEX IF NOT EXISTS idx_carti_an ON carti(an_publicatie)");
+        crudService.executeUpdate("CREATE INDEX IF NOT EXISTS idx_carti_disponibil ON carti(este_disponibil)");
+        crudService.executeUpdate("CREATE INDEX IF NOT EXISTS idx_carti_autor ON carti(id_autor)");
     }
-    
+
     // adaugare carte
     public void adaugaCarte(Carte carte) {
-        String query;
+        StatisticiService statistici = StatisticiService.getInstance();
+        statistici.scriereInceputa();
+        int id = -1;
+        try {
+            id = insereaza(carte);
+        } finally {
+            if (id <= 0) {
+                statistici.scriereAnulata();
+            }
+        }
+        if (id > 0) {
+            carte.setId(id);
+            statistici.carteAdaugata(carte);
+            notificaIndexuri(index -> index.adauga(carte));
+        }
+    }
+
+    private int insereaza(Carte carte) {
+        int id;
         if (carte instanceof Roman) {
             Roman roman = (Roman) carte;
-            query = String.format("INSERT INTO carti (nume, id_autor, id_sectiune, an_publicatie, este_disponibil, " +
-                                 "tip_carte, gen_literar, numar_pagini) VALUES ('%s', %d, %d, %d, %b, 'ROMAN', '%s', %d)",
-                                 carte.getNume(), carte.getAutor().getId(), carte.getSectiune().getId(), 
+            id = crudService.executeInsert("INSERT INTO carti (nume, id_autor, id_sectiune, an_publicatie, este_disponibil, " +
+                                 "tip_carte, gen_literar, numar_pagini) VALUES (?, ?, ?, ?, ?, 'ROMAN', ?, ?)",
+                                 carte.getNume(), carte.getAutor().getId(), carte.getSectiune().getId(),
                                  carte.getAnPublicatie(), carte.esteDisponibil(),
                                  roman.getGenLiterar(), roman.getNumarPagini());
         } else if (carte instanceof EditieSpeciala) {
             EditieSpeciala editie = (EditieSpeciala) carte;
-            query = String.format("INSERT INTO carti (nume, id_autor, id_sectiune, an_publicatie, este_disponibil, " +
-                                 "tip_carte, tip_editie, numar_exemplare) VALUES ('%s', %d, %d, %d, %b, 'EDITIE', '%s', %d)",
-                                 carte.getNume(), carte.getAutor().getId(), carte.getSectiune().getId(), 
+            id = crudService.executeInsert("INSERT INTO carti (nume, id_autor, id_sectiune, an_publicatie, este_disponibil, " +
+                                 "tip_carte, tip_editie, numar_exemplare) VALUES (?, ?, ?, ?, ?, 'EDITIE', ?, ?)",
+                                 carte.getNume(), carte.getAutor().getId(), carte.getSectiune().getId(),
                                  carte.getAnPublicatie(), carte.esteDisponibil(),
                                  editie.getTipEditie(), editie.getNumarExemplare());
         } else {
-            query = String.format("INSERT INTO carti (nume, id_autor, id_sectiune, an_publicatie, este_disponibil, tip_carte) " +
-                                 "VALUES ('%s', %d, %d, %d, %b, 'CARTE')",
-                                 carte.getNume(), carte.getAutor().getId(), carte.getSectiune().getId(), 
+            id = crudService.executeInsert("INSERT INTO carti (nume, id_autor, id_sectiune, an_publicatie, este_disponibil, tip_carte) " +
+                                 "VALUES (?, ?, ?, ?, ?, 'CARTE')",
+                                 carte.getNume(), carte.getAutor().getId(), carte.getSectiune().getId(),
                                  carte.getAnPublicatie(), carte.esteDisponibil());
         }
+        return id;
+    }
 
-        try (Connection conn = DatabaseConnection.getConnection();
-            PreparedStatement stmt = conn.prepareStatement(query, Statement.RETURN_GENERATED_KEYS)) {
-            stmt.executeUpdate();
-            try (ResultSet rs = stmt.getGeneratedKeys()) {
-                if (rs.next()) {
-                    carte.setId(rs.getInt(1));
-                }
+    // adaugare carti in lot; toate tipurile folosesc acelasi INSERT, coloanele nefolosite raman NULL
+    public int[] adaugaCarti(Collection<Carte> carti) {
+        List<Object[]> randuri = new ArrayList<>(carti.size());
+        for (Carte carte : carti) {
+            Object[] rand = new Object[] {
+                carte.getNume(), carte.getAutor().getId(), carte.getSectiune().getId(),
+                carte.getAnPublicatie(), carte.esteDisponibil(), "CARTE", null, null, null, null
+            };
+            if (carte instanceof Roman) {
+                Roman roman = (Roman) carte;
+                rand[5] = "ROMAN";
+                rand[6] = roman.getGenLiterar();
+                rand[7] = roman.getNumarPagini();
+            } else if (carte instanceof EditieSpeciala) {
+                EditieSpeciala editie = (EditieSpeciala) carte;
+                rand[5] = "EDITIE";
+                rand[8] = editie.getTipEditie();
+                rand[9] = editie.getNumarExemplare();
             }
-        } catch (SQLException e) {
-            e.printStackTrace();
-    }
+            randuri.add(rand);
+        }
+        int[] ids = crudService.executeBatch("INSERT INTO carti (nume, id_autor, id_sectiune, an_publicatie, " +
+                                 "este_disponibil, tip_carte, gen_literar, numar_pagini, tip_editie, numar_exemplare) " +
+                                 "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?)", randuri);
+        int i = 0;
+        for (Carte carte : carti) {
+            if (ids[i] > 0) {
+                carte.setId(ids[i]);
+                notificaIndexuri(index -> index.adauga(carte));
+            }
+            i++;
+        }
+        StatisticiService.getInstance().invalideaza();
+        return ids;
     }
-    
+
     // obtine toate cartile
     public List<Carte> getToateCartile() {
-        String query = "SELECT c.*, " +
-                        "a.prenume AS autor_prenume, a.nume AS autor_nume, a.nationalitate AS autor_nationalitate, " +
-                        "s.nume_sectiune, s.locatie " +
-                        "FROM carti c " +
-                        "JOIN autori a ON c.id_autor = a.id " +
-                        "JOIN sectiuni s ON c.id_sectiune = s.id";
-        return crudService.executeQuery(query, new CRUDService.ResultSetMapper<Carte>() {
-            @Override
-            public Carte map(ResultSet rs) throws SQLException {
-                Autor autor = new Autor(
-                    rs.getString("autor_prenume"),
-                    rs.getString("autor_nume"),
-                    rs.getString("autor_nationalitate")
-                );
-                autor.setId(rs.getInt("id_autor"));
-                
-                Sectiune sectiune = new Sectiune(
-                    rs.getString("nume_sectiune"),
-                    rs.getString("locatie")
-                );
-                sectiune.setId(rs.getInt("id"));
-                
-                String tipCarte = rs.getString("tip_carte");
-                if ("ROMAN".equals(tipCarte)) {
-                    Roman roman = new Roman(
-                        rs.getString("nume"),
-                        autor,
-                        sectiune,
-                        rs.getInt("an_publicatie"),
-                        rs.getString("gen_literar"),
-                        rs.getInt("numar_pagini")
-                    );
-                    roman.setId(rs.getInt("id"));
-                    return roman;
-                } else if ("EDITIE".equals(tipCarte)) {
-                    EditieSpeciala editie = new EditieSpeciala(
-                        rs.getString("nume"),
-                        autor,
-                        sectiune,
-                        rs.getInt("an_publicatie"),
-                        rs.getString("tip_editie"),
-                        rs.getInt("numar_exemplare")
-                    );
-                    editie.setId(rs.getInt("id"));
-                    return editie;
-                } else {
-                    Carte carte = new Carte(
-                        rs.getString("nume"),
-                        autor,
-                        sectiune,
-                        rs.getInt("an_publicatie")
-                    );
-                    carte.setEsteDisponibil(rs.getBoolean("este_disponibil"));
-                    carte.setId(rs.getInt("id"));
-                    return carte;
-                }
-            }
-        });
+        return crudService.executeQuery(SELECT_CARTI, carteMapper);
     }
-    
+
     // update carte
     public void actualizeazaCarte(Carte carte) {
-        String query = String.format("UPDATE carti SET nume='%s', id_autor=%d, id_sectiune=%d, " +
-                                    "an_publicatie=%d, este_disponibil=%b WHERE id=%d",
-                                    carte.getNume(), carte.getAutor().getId(), 
-                                    carte.getSectiune().getId(), carte.getAnPublicatie(),
-                                    carte.esteDisponibil(), carte.getId());
-        crudService.executeUpdate(query);
+        String query = "UPDATE carti SET nume=?, id_autor=?, id_sectiune=?, an_publicatie=?, este_disponibil=? WHERE id=?";
+        crudService.executeUpdate(query, carte.getNume(), carte.getAutor().getId(),
+                                  carte.getSectiune().getId(), carte.getAnPublicatie(),
+                                  carte.esteDisponibil(), carte.getId());
+        notificaIndexuri(index -> index.actualizeaza(carte));
+        StatisticiService.getInstance().invalideaza();
+    }
+
+    // marcheaza cartea ca imprumutata doar daca este inca disponibila (compare-and-set);
+    // intoarce false daca altcineva a imprumutat-o intre timp
+    public boolean marcheazaImprumutata(int idCarte) {
+        boolean marcata = crudService.executeUpdate(MARCHEAZA_IMPRUMUTATA, idCarte) == 1;
+        if (marcata) {
+            notificaIndexuri(index -> index.disponibilitateSchimbata(idCarte, false));
+            StatisticiService.getInstance().invalideaza();
+        }
+        return marcata;
+    }
+
+    public boolean marcheazaImprumutata(Tranzactie tx, int idCarte) throws SQLException {
+        boolean marcata = tx.update(MARCHEAZA_IMPRUMUTATA, idCarte) == 1;
+        if (marcata) {
+            tx.dupaCommit(() -> notificaIndexuri(index -> index.disponibilitateSchimbata(idCarte, false)));
+        }
+        return marcata;
+    }
+
+    // marcheaza cartea ca disponibila doar daca era imprumutata
+    public boolean marcheazaReturnata(int idCarte) {
+        boolean marcata = crudService.executeUpdate(MARCHEAZA_RETURNATA, idCarte) == 1;
+        if (marcata) {
+            notificaIndexuri(index -> index.disponibilitateSchimbata(idCarte, true));
+            StatisticiService.getInstance().invalideaza();
+        }
+        return marcata;
+    }
+
+    public boolean marcheazaReturnata(Tranzactie tx, int idCarte) throws SQLException {
+        boolean marcata = tx.update(MARCHEAZA_RETURNATA, idCarte) == 1;
+        if (marcata) {
+            tx.dupaCommit(() -> notificaIndexuri(index -> index.disponibilitateSchimbata(idCarte, true)));
+        }
+        return marcata;
     }
-    
+
+    // cartile imprumutate acum de cititor redevin disponibile; se apeleaza inainte ca stergerea
+    // cititorului sa le stearga imprumuturile in cascada
+    public List<Integer> elibereazaCartiCititor(Tranzactie tx, int idCititor) throws SQLException {
+        List<Integer> iduri = tx.query(CARTI_IMPRUMUTATE_CITITOR, rs -> rs.getInt(1), idCititor);
+        for (int idCarte : iduri) {
+            marcheazaReturnata(tx, idCarte);
+        }
+        return iduri;
+    }
+
+    // toate cartile unui autor intr-o singura instructiune (imprumuturile lor se sterg in cascada)
+    public int stergeCartiAutor(Tranzactie tx, int idAutor) throws SQLException {
+        tx.dupaCommit(() -> notificaIndexuri(index -> index.eliminaAutor(idAutor)));
+        tx.dupaCommit(StatisticiService.getInstance()::invalideaza);
+        return tx.update("DELETE FROM carti WHERE id_autor = ?", idAutor);
+    }
+
     // stergere carte
     public void stergeCarte(int idCarte) {
-        String query = String.format("DELETE FROM carti WHERE id=%d", idCarte);
-        crudService.executeUpdate(query);
+        crudService.executeUpdate("DELETE FROM carti WHERE id=?", idCarte);
+        notificaIndexuri(index -> index.elimina(idCarte));
+        StatisticiService.getInstance().invalideaza();
     }
-    
-    // obt carte dupa ID
-    public Carte getCarteById(int id) {
-        String query = "SELECT c.*, " +
-                    "a.prenume AS autor_prenume, a.nume AS autor_nume, a.nationalitate AS autor_nationalitate, " +
-                    "s.nume_sectiune, s.locatie " +
-                    "FROM carti c " +
-                    "JOIN autori a ON c.id_autor = a.id " +
-                    "JOIN sectiuni s ON c.id_sectiune = s.id " +
-                    "WHERE c.id=" + id;
-        List<Carte> carti = crudService.executeQuery(query, new CRUDService.ResultSetMapper<Carte>() {
-            @Override
-            public Carte map(ResultSet rs) throws SQLException {
-                Autor autor = new Autor(
-                    rs.getString("prenume"),
-                    rs.getString("nume"),
-                    rs.getString("nationalitate")
-                );
-                autor.setId(rs.getInt("a.id"));
-                
-                Sectiune sectiune = new Sectiune(
-                    rs.getString("nume_sectiune"),
-                    rs.getString("locatie")
-                );
-                sectiune.setId(rs.getInt("id"));
-                
-                String tipCarte = rs.getString("tip_carte");
-                if ("ROMAN".equals(tipCarte)) {
-                    return new Roman(
-                        rs.getString("nume"),
-                        autor,
-                        sectiune,
-                        rs.getInt("an_publicatie"),
-                        rs.getString("gen_literar"),
-                        rs.getInt("numar_pagini")
-                    );
-                } else if ("EDITIE".equals(tipCarte)) {
-                    return new EditieSpeciala(
-                        rs.getString("nume"),
-                        autor,
-                        sectiune,
-                        rs.getInt("an_publicatie"),
-                        rs.getString("tip_editie"),
-                        rs.getInt("numar_exemplare")
-                    );
-                } else {
-                    Carte carte = new Carte(
-                        rs.getString("nume"),
-                        autor,
-                        sectiune,
-                        rs.getInt("an_publicatie")
-                    );
-                    carte.setEsteDisponibil(rs.getBoolean("este_disponibil"));
-                    return carte;
+
+    public void stergeCarte(Tranzactie tx, int idCarte) throws SQLException {
+        tx.update("DELETE FROM carti WHERE id=?", idCarte);
+        tx.dupaCommit(() -> notificaIndexuri(index -> index.elimina(idCarte)));
+        tx.dupaCommit(StatisticiService.getInstance()::invalideaza);
+    }
+
+    // indexul de cautare full-text peste titluri si autori
+    public CatalogIndex getCatalog() {
+        CatalogIndex index = catalog;
+        if (index == null) {
+            synchronized (this) {
+                index = catalog;
+                if (index == null) {
+                    index = construiesteIndex(() -> {
+                        try (Stream<Carte> carti = streamToateCartile()) {
+                            return CatalogIndex.construieste(carti);
+                        }
+                    });
+                    catalog = index;
                 }
             }
-        });
+        }
+        return index;
+    }
 
-        return carti.isEmpty() ? null : carti.get(0);
+    // indexul pentru cautari combinate (an, sectiune, gen, disponibilitate)
+    public IndexAtribute getIndexAtribute() {
+        IndexAtribute index = indexAtribute;
+        if (index == null) {
+            synchronized (this) {
+                index = indexAtribute;
+                if (index == null) {
+                    index = construiesteIndex(() -> {
+                        try (Stream<Carte> carti = streamToateCartile()) {
+                            return IndexAtribute.construieste(carti);
+                        }
+                    });
+                    indexAtribute = index;
+                }
+            }
+        }
+        return index;
     }
 
-    public int countCarti() {
-        String sql = "SELECT COUNT(*) FROM carti";
-        try (Connection conn = DatabaseConnection.getConnection();
-            Statement stmt = conn.createStatement();
-            ResultSet rs = stmt.executeQuery(sql)) {
-            if (rs.next()) {
-                return rs.getInt(1);
+    // sugestiile dupa prefix, ordonate dupa numarul de imprumuturi
+    public Autocomplete getAutocomplete() {
+        Autocomplete index = autocomplete;
+        if (index == null) {
+            synchronized (this) {
+                index = autocomplete;
+                if (index == null) {
+                    // numaratoarea se termina (si isi elibereaza conexiunea) inainte de scanare
+                    index = construiesteIndex(() -> {
+                        Map<Integer, Integer> imprumuturi = ImprumutService.getInstance().getNumarImprumuturiPeCarte();
+                        try (Stream<Carte> carti = streamToateCartile()) {
+                            return Autocomplete.construieste(carti, imprumuturi);
+                        }
+                    });
+                    autocomplete = index;
+                }
             }
-        } catch (SQLException e) {
-            e.printStackTrace();
         }
-        return 0;
+        return index;
+    }
+
+    // scanarea se face fara lock (asteptarea unei conexiuni sub lock ar bloca tranzactiile care
+    // notifica dupa commit tinand inca o conexiune); scrierile notificate intre timp se reaplica
+    // sub lock-ul de scriere, apoi indexul devine vizibil. Daca scanarea esueaza, exceptia ajunge
+    // la apelant si nu se publica nimic, deci urmatoarea cerere reincearca.
+    // O scriere confirmata inainte de scanare si notificata in timpul ei ajunge de doua ori in
+    // index; operatiile din IndexCarti sunt idempotente (imprumuturile se transmit ca numar
+    // total din baza, nu ca incrementare), deci nu conteaza.
+    private <I extends IndexCarti> I construiesteIndex(Supplier<I> scanare) {
+        Queue<Consumer<IndexCarti>> notificari = new ConcurrentLinkedQueue<>();
+        lockIndexuri.writeLock().lock();
+        try {
+            notificariInConstructie = notificari;
+        } finally {
+            lockIndexuri.writeLock().unlock();
+        }
+        I index = null;
+        try {
+            index = scanare.get();
+        } finally {
+            lockIndexuri.writeLock().lock();
+            try {
+                notificariInConstructie = null;
+                if (index != null) {
+                    for (Consumer<IndexCarti> notificare : notificari) {
+                        notificare.accept(index);
+                    }
+                    indexuri.add(index);
+                }
+            } finally {
+                lockIndexuri.writeLock().unlock();
+            }
+        }
+        return index;
+    }
+
+    private void notificaIndexuri(Consumer<IndexCarti> notificare) {
+        lockIndexuri.readLock().lock();
+        try {
+            indexuri.forEach(notificare);
+            Queue<Consumer<IndexCarti>> inConstructie = notificariInConstructie;
+            if (inConstructie != null) {
+                inConstructie.add(notificare);
+            }
+        } finally {
+            lockIndexuri.readLock().unlock();
+        }
+    }
+
+    // numele autorului este indexat la fiecare carte a lui
+    void autorActualizat(Autor autor) {
+        notificaIndexuri(index -> index.actualizeazaAutor(autor));
+    }
+
+    // dupa commit-ul imprumutului; numarul se citeste doar daca sugestiile sunt (sau se) construite
+    void imprumutInregistrat(Carte carte) {
+        if (autocomplete == null && notificariInConstructie == null) {
+            return;
+        }
+        int numar = ImprumutService.getInstance().getNumarImprumuturi(carte.getId());
+        notificaIndexuri(index -> index.imprumuturiNumarate(carte.getId(), numar));
+    }
+
+    // cartile cu id-urile date, in ordinea id-urilor; interogarea se face in loturi
+    public List<Carte> getCartiDupaIduri(int[] ids) {
+        List<Carte> rezultat = new ArrayList<>(ids.length);
+        for (int de = 0; de < ids.length; de += LOT_IDURI) {
+            Integer[] lot = new Integer[Math.min(LOT_IDURI, ids.length - de)];
+            for (int i = 0; i < lot.length; i++) {
+                lot[i] = ids[de + i];
+            }
+            rezultat.addAll(crudService.executeQuery(SELECT_CARTI + " WHERE c.id = ANY(?) ORDER BY c.id",
+                                                     carteMapper, (Object) lot));
+        }
+        return rezultat;
+    }
+
+    // obt carte dupa ID
+    public Carte getCarteById(int id) {
+        List<Carte> carti = crudService.executeQuery(SELECT_CARTI + " WHERE c.id=?", carteMapper, id);
+        return carti.isEmpty() ? null : carti.get(0);
+    }
+
+    // pagina de carti cu id > dupaId; prima pagina se cere cu dupaId = 0
+    public Pagina<Carte> getCartiPagina(int dupaId, int limita) {
+        return crudService.executePage(SELECT_CARTI, "c.id", carteMapper, Carte::getId, dupaId, limita);
+    }
+
+    // variantele stream citesc cartile rand cu rand; se inchid cu try-with-resources
+    public Stream<Carte> streamToateCartile() {
+        return crudService.stream(SELECT_CARTI, carteMapper);
+    }
+
+    public Stream<Carte> streamCartiDisponibile() {
+        return crudService.stream(SELECT_CARTI + " WHERE c.este_disponibil = TRUE", carteMapper);
+    }
+
+    // cautare dupa numele cartii, fara a tine cont de majuscule
+    public List<Carte> cautaDupaNume(String nume) {
+        return crudService.executeQuery(SELECT_CARTI + " WHERE c.nume_cautare = LOWER(?)", carteMapper, nume);
+    }
+
+    // cautare dupa numele de familie al autorului, fara a tine cont de majuscule
+    public List<Carte> cautaDupaAutor(String numeAutor) {
+        return crudService.executeQuery(SELECT_CARTI + " WHERE a.nume_cautare = LOWER(?)", carteMapper, numeAutor);
+    }
+
+    public List<Carte> cautaDupaAn(int anPublicatie) {
+        return crudService.executeQuery(SELECT_CARTI + " WHERE c.an_publicatie = ?", carteMapper, anPublicatie);
+    }
+
+    public List<Carte> getCartiDisponibile() {
+        return crudService.executeQuery(SELECT_CARTI + " WHERE c.este_disponibil = TRUE", carteMapper);
+    }
+
+    public int countCarti() {
+        return crudService.executeCount("SELECT COUNT(*) FROM carti");
     }
 
     public List<Carte> getCartiPentruAutor(int autorId) {
-        List<Carte> carti = getToateCartile();
-        return carti.stream()
-                .filter(carte -> carte.getAutor().getId() == autorId)
-                .collect(java.util.stream.Collectors.toList());
+        return crudService.executeQuery(SELECT_CARTI + " WHERE c.id_autor = ?", carteMapper, autorId);
+    }
+
+    // toti autorii (inclusiv cei fara carti) cu cartile lor, dintr-o singura interogare
+    // ordonata dupa autor; randurile sunt grupate pe masura ce sunt citite
+    public Map<Autor, List<Carte>> getCartiGrupateDupaAutor() {
+        String query = "SELECT a.id AS id_autor, a.prenume AS autor_prenume, a.nume AS autor_nume, " +
+                       "a.nationalitate AS autor_nationalitate, " +
+                       "c.id, c.nume, c.id_sectiune, c.an_publicatie, c.este_disponibil, c.tip_carte, " +
+                       "c.gen_literar, c.numar_pagini, c.tip_editie, c.numar_exemplare, " +
+                       "s.nume_sectiune, s.locatie " +
+                       "FROM autori a " +
+                       "LEFT JOIN carti c ON c.id_autor = a.id " +
+                       "LEFT JOIN sectiuni s ON c.id_sectiune = s.id " +
+                       "ORDER BY a.id, c.id";
+        Map<Autor, List<Carte>> rezultat = new LinkedHashMap<>();
+        crudService.forEachRow(query, (rs, identitati) -> {
+            // identity map-ul da aceeasi instanta de Autor pentru toate randurile autorului
+            Autor autor = identitati.resolve(Autor.class, rs.getInt("id_autor"), autorDinRand, rs);
+            List<Carte> carti = rezultat.computeIfAbsent(autor, a -> new ArrayList<>());
+            rs.getInt("id");
+            if (!rs.wasNull()) {
+                carti.add(carteMapper.map(rs, identitati));
+            }
+        });
+        return rezultat;
     }
-}
\ No newline at end of file
+}
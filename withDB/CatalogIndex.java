@@ -0,0 +1,411 @@
+package withDB;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+// index inversat peste titluri si numele autorilor: termen normalizat (fara diacritice,
+// litere mici) -> id-urile cartilor, tinute ca int[] sortat. Interogarile cu mai multi
+// termeni intersecteaza listele (AND); fiecare termen se potriveste exact, ca prefix sau
+// aproximativ (distanta de editare). Se actualizeaza incremental la scrierile din CarteService.
+public class CatalogIndex implements IndexCarti {
+    private static final Pattern DIACRITICE = Pattern.compile("\\p{M}+");
+    private static final int[] GOL = new int[0];
+
+    private final TreeMap<String, ListaId> termeni = new TreeMap<>();
+    // id carte -> termenii titlului si autorul, ca sa putem scoate cartea din index
+    private final Map<Integer, IntrareCarte> carti = new HashMap<>();
+    // id autor -> termenii numelui si cartile lui
+    private final Map<Integer, IntrareAutor> autori = new HashMap<>();
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private static final class IntrareCarte {
+        private final String[] titlu;
+        private final int idAutor;
+
+        private IntrareCarte(String[] titlu, int idAutor) {
+            this.titlu = titlu;
+            this.idAutor = idAutor;
+        }
+    }
+
+    private static final class IntrareAutor {
+        private String[] nume;
+        private final ListaId carti = new ListaId();
+
+        private IntrareAutor(String[] nume) {
+            this.nume = nume;
+        }
+    }
+
+    // lista sortata de id-uri, fara duplicate; id-urile noi sunt de obicei cele mai mari,
+    // deci adaugarea este in general un append
+    static final class ListaId {
+        private int[] ids = new int[4];
+        private int size;
+
+        void adauga(int id) {
+            int poz = size;
+            if (size > 0 && ids[size - 1] >= id) {
+                poz = Arrays.binarySearch(ids, 0, size, id);
+                if (poz >= 0) {
+                    return;
+                }
+                poz = -poz - 1;
+            }
+            if (size == ids.length) {
+                ids = Arrays.copyOf(ids, size * 2);
+            }
+            System.arraycopy(ids, poz, ids, poz + 1, size - poz);
+            ids[poz] = id;
+            size++;
+        }
+
+        boolean elimina(int id) {
+            int poz = Arrays.binarySearch(ids, 0, size, id);
+            if (poz < 0) {
+                return false;
+            }
+            System.arraycopy(ids, poz + 1, ids, poz, size - poz - 1);
+            size--;
+            return true;
+        }
+
+        int size() {
+            return size;
+        }
+
+        int[] toArray() {
+            return Arrays.copyOf(ids, size);
+        }
+    }
+
+    public static CatalogIndex construieste(Stream<Carte> carti) {
+        CatalogIndex index = new CatalogIndex();
+        carti.forEach(index::adauga);
+        return index;
+    }
+
+    // adauga cartea sau o reindexeaza daca exista deja
+    @Override
+    public void adauga(Carte carte) {
+        lock.writeLock().lock();
+        try {
+            eliminaCarte(carte.getId());
+            Autor autor = carte.getAutor();
+            IntrareAutor intrareAutor = autori.computeIfAbsent(autor.getId(),
+                id -> new IntrareAutor(tokenizeaza(autor.getPrenume() + " " + autor.getNume())));
+            IntrareCarte intrare = new IntrareCarte(tokenizeaza(carte.getNume()), autor.getId());
+            carti.put(carte.getId(), intrare);
+            intrareAutor.carti.adauga(carte.getId());
+            indexeaza(carte.getId(), intrare);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void actualizeaza(Carte carte) {
+        adauga(carte);
+    }
+
+    @Override
+    public void elimina(int idCarte) {
+        lock.writeLock().lock();
+        try {
+            eliminaCarte(idCarte);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // toate cartile autorului, dupa stergerea lui in cascada
+    @Override
+    public void eliminaAutor(int idAutor) {
+        lock.writeLock().lock();
+        try {
+            IntrareAutor intrare = autori.get(idAutor);
+            if (intrare != null) {
+                for (int idCarte : intrare.carti.toArray()) {
+                    eliminaCarte(idCarte);
+                }
+                autori.remove(idAutor);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // numele autorului apare in index la fiecare carte a lui
+    @Override
+    public void actualizeazaAutor(Autor autor) {
+        lock.writeLock().lock();
+        try {
+            IntrareAutor intrare = autori.get(autor.getId());
+            if (intrare == null) {
+                return;
+            }
+            int[] ids = intrare.carti.toArray();
+            for (int idCarte : ids) {
+                deindexeaza(idCarte, carti.get(idCarte));
+            }
+            intrare.nume = tokenizeaza(autor.getPrenume() + " " + autor.getNume());
+            for (int idCarte : ids) {
+                indexeaza(idCarte, carti.get(idCarte));
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public int[] cauta(String text) {
+        return cauta(text, Potrivire.EXACT);
+    }
+
+    public int[] cautaPrefix(String text) {
+        return cauta(text, Potrivire.PREFIX);
+    }
+
+    public int[] cautaAproximativ(String text) {
+        return cauta(text, Potrivire.APROXIMATIV);
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return carti.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int numarTermeni() {
+        lock.readLock().lock();
+        try {
+            return termeni.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private enum Potrivire { EXACT, PREFIX, APROXIMATIV }
+
+    // id-urile (crescator) cartilor care contin toti termenii interogarii
+    private int[] cauta(String text, Potrivire potrivire) {
+        String[] cautati = tokenizeaza(text);
+        if (cautati.length == 0) {
+            return GOL;
+        }
+        lock.readLock().lock();
+        try {
+            int[][] liste = new int[cautati.length][];
+            for (int i = 0; i < cautati.length; i++) {
+                liste[i] = potriviri(cautati[i], potrivire);
+                if (liste[i].length == 0) {
+                    return GOL;
+                }
+            }
+            // intersectia incepe cu lista cea mai scurta
+            Arrays.sort(liste, (a, b) -> Integer.compare(a.length, b.length));
+            int[] rezultat = liste[0];
+            for (int i = 1; i < liste.length && rezultat.length > 0; i++) {
+                rezultat = intersectie(rezultat, liste[i]);
+            }
+            return rezultat;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private int[] potriviri(String termen, Potrivire potrivire) {
+        if (potrivire == Potrivire.EXACT) {
+            ListaId lista = termeni.get(termen);
+            return lista == null ? GOL : lista.toArray();
+        }
+        List<ListaId> liste = new ArrayList<>();
+        if (potrivire == Potrivire.PREFIX) {
+            liste.addAll(termeni.subMap(termen, true, termen + Character.MAX_VALUE, false).values());
+        } else {
+            // prima litera trebuie sa fie corecta (ca prefixLength = 1 la cautarile fuzzy din Lucene),
+            // astfel se compara doar termenii care incep cu ea, nu tot vocabularul
+            int maxDistanta = termen.length() <= 3 ? 0 : termen.length() <= 6 ? 1 : 2;
+            String prima = termen.substring(0, 1);
+            for (Map.Entry<String, ListaId> intrare
+                    : termeni.subMap(prima, true, prima + Character.MAX_VALUE, false).entrySet()) {
+                if (distantaMaxima(termen, intrare.getKey(), maxDistanta)) {
+                    liste.add(intrare.getValue());
+                }
+            }
+        }
+        return reuniune(liste);
+    }
+
+    private void indexeaza(int idCarte, IntrareCarte intrare) {
+        String[] numeAutor = autori.get(intrare.idAutor).nume;
+        for (String termen : intrare.titlu) {
+            termeni.computeIfAbsent(termen, t -> new ListaId()).adauga(idCarte);
+        }
+        for (String termen : numeAutor) {
+            termeni.computeIfAbsent(termen, t -> new ListaId()).adauga(idCarte);
+        }
+    }
+
+    private void deindexeaza(int idCarte, IntrareCarte intrare) {
+        String[] numeAutor = autori.get(intrare.idAutor).nume;
+        for (String termen : intrare.titlu) {
+            scoate(termen, idCarte);
+        }
+        for (String termen : numeAutor) {
+            scoate(termen, idCarte);
+        }
+    }
+
+    // un termen prezent si in titlu si in numele autorului este scos la prima trecere,
+    // a doua gaseste lista fara id si nu mai face nimic
+    private void scoate(String termen, int idCarte) {
+        ListaId lista = termeni.get(termen);
+        if (lista != null && lista.elimina(idCarte) && lista.size() == 0) {
+            termeni.remove(termen);
+        }
+    }
+
+    private void eliminaCarte(int idCarte) {
+        IntrareCarte intrare = carti.remove(idCarte);
+        if (intrare == null) {
+            return;
+        }
+        deindexeaza(idCarte, intrare);
+        IntrareAutor autor = autori.get(intrare.idAutor);
+        autor.carti.elimina(idCarte);
+        if (autor.carti.size() == 0) {
+            autori.remove(intrare.idAutor);
+        }
+    }
+
+    // "Povestea lui Harap-Alb" -> [povestea, lui, harap, alb]; "Ştefan" si "Ștefan" -> stefan
+    static String[] tokenizeaza(String text) {
+        if (text == null) {
+            return new String[0];
+        }
+        if (!esteAscii(text)) {
+            text = DIACRITICE.matcher(Normalizer.normalize(text, Normalizer.Form.NFD)).replaceAll("");
+        }
+        List<String> rezultat = new ArrayList<>();
+        int inceput = -1;
+        for (int i = 0; i <= text.length(); i++) {
+            boolean litera = i < text.length() && Character.isLetterOrDigit(text.charAt(i));
+            if (litera && inceput < 0) {
+                inceput = i;
+            } else if (!litera && inceput >= 0) {
+                String termen = text.substring(inceput, i).toLowerCase(Locale.ROOT);
+                if (!rezultat.contains(termen)) {
+                    rezultat.add(termen);
+                }
+                inceput = -1;
+            }
+        }
+        return rezultat.toArray(new String[0]);
+    }
+
+    private static boolean esteAscii(String text) {
+        for (int i = 0; i < text.length(); i++) {
+            if (text.charAt(i) > 0x7F) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    static int[] intersectie(int[] a, int[] b) {
+        int[] rezultat = new int[Math.min(a.length, b.length)];
+        int i = 0;
+        int j = 0;
+        int n = 0;
+        while (i < a.length && j < b.length) {
+            if (a[i] < b[j]) {
+                i++;
+            } else if (a[i] > b[j]) {
+                j++;
+            } else {
+                rezultat[n++] = a[i];
+                i++;
+                j++;
+            }
+        }
+        return Arrays.copyOf(rezultat, n);
+    }
+
+    private static int[] reuniune(List<ListaId> liste) {
+        if (liste.isEmpty()) {
+            return GOL;
+        }
+        if (liste.size() == 1) {
+            return liste.get(0).toArray();
+        }
+        int total = 0;
+        for (ListaId lista : liste) {
+            total += lista.size;
+        }
+        int[] toate = new int[total];
+        int n = 0;
+        for (ListaId lista : liste) {
+            System.arraycopy(lista.ids, 0, toate, n, lista.size);
+            n += lista.size;
+        }
+        Arrays.sort(toate);
+        int unice = 0;
+        for (int i = 0; i < toate.length; i++) {
+            if (unice == 0 || toate[unice - 1] != toate[i]) {
+                toate[unice++] = toate[i];
+            }
+        }
+        return Arrays.copyOf(toate, unice);
+    }
+
+    // distanta Levenshtein <= max, calculata doar pe banda diagonala si oprita devreme
+    static boolean distantaMaxima(String a, String b, int max) {
+        if (Math.abs(a.length() - b.length()) > max) {
+            return false;
+        }
+        if (max == 0) {
+            return a.equals(b);
+        }
+        int[] anterior = new int[b.length() + 1];
+        int[] curent = new int[b.length() + 1];
+        for (int j = 0; j <= b.length(); j++) {
+            anterior[j] = j;
+        }
+        for (int i = 1; i <= a.length(); i++) {
+            curent[0] = i;
+            int minimRand = i;
+            int de = Math.max(1, i - max);
+            int pana = Math.min(b.length(), i + max);
+            if (de > 1) {
+                curent[de - 1] = max + 1;
+            }
+            for (int j = de; j <= pana; j++) {
+                int cost = a.charAt(i - 1) == b.charAt(j - 1) ? 0 : 1;
+                curent[j] = Math.min(Math.min(curent[j - 1] + 1, anterior[j] + 1), anterior[j - 1] + cost);
+                minimRand = Math.min(minimRand, curent[j]);
+            }
+            if (pana < b.length()) {
+                curent[pana + 1] = max + 1;
+            }
+            if (minimRand > max) {
+                return false;
+            }
+            int[] aux = anterior;
+            anterior = curent;
+            curent = aux;
+        }
+        return anterior[b.length()] <= max;
+    }
+}
@@ -0,0 +1,11 @@
+package withDB;
+
+// cititorul nu indeplineste conditiile pentru cartea ceruta (de exemplu o editie speciala
+// fara niciun imprumut in istoric); se verifica in Biblioteca, deci si pentru meniu si pentru HTTP
+public class CititorNeeligibilException extends IllegalStateException {
+    private static final long serialVersionUID = 1L;
+
+    public CititorNeeligibilException(String mesaj) {
+        super(mesaj);
+    }
+}
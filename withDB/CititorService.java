@@ -1,27 +1,64 @@
 package withDB;
 
-import java.sql.Connection;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Collection;
 import java.util.List;
-import java.sql.Statement;
-import java.sql.PreparedStatement;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 public class CititorService {
     private static CititorService instance;
     private final CRUDService<Cititor> crudService;
-    
+    // cat timp o autentificare reusita este refolosita fara a recalcula hash-ul parolei
+    private static final long TTL_SESIUNE_MS = Long.getLong("biblioteca.sesiune.ttlMs", 15 * 60 * 1000L);
+    // id_cititor -> sesiunea deschisa la ultima autentificare reusita
+    private final Map<Integer, Sesiune> sesiuni = new ConcurrentHashMap<>();
+    // token -> sesiune, pentru clientii HTTP care nu trimit parola la fiecare cerere
+    private final Map<String, Sesiune> sesiuniToken = new ConcurrentHashMap<>();
+    private final SecureRandom random = new SecureRandom();
+
+    private static final class Sesiune {
+        private final Cititor cititor;
+        private final byte[] amprenta;
+        private final long expiraLa;
+
+        private Sesiune(Cititor cititor, byte[] amprenta, long expiraLa) {
+            this.cititor = cititor;
+            this.amprenta = amprenta;
+            this.expiraLa = expiraLa;
+        }
+    }
+
+    private final CRUDService.ResultSetMapper<Cititor> cititorMapper = new CRUDService.ResultSetMapper<Cititor>() {
+        @Override
+        public Cititor map(ResultSet rs) throws SQLException {
+            Cititor cititor = new Cititor(
+                rs.getString("nume"),
+                rs.getString("prenume"),
+                rs.getInt("id_cititor"),
+                rs.getString("parola")
+            );
+            cititor.setId(rs.getInt("id"));
+            return cititor;
+        }
+    };
+
     private CititorService() {
         crudService = CRUDService.getInstance();
     }
-    
+
     public static synchronized CititorService getInstance() {
         if (instance == null) {
             instance = new CititorService();
         }
         return instance;
     }
-    
+
     // creare tabel
     public void createTable() {
         String query = "CREATE TABLE IF NOT EXISTS cititori (" +
@@ -29,73 +66,192 @@ public class CititorService {
                        "nume VARCHAR(50) NOT NULL, " +
                        "prenume VARCHAR(50) NOT NULL, " +
                        "id_cititor INT NOT NULL UNIQUE, " +
-                       "parola VARCHAR(50) NOT NULL)";
+                       "parola VARCHAR(200) NOT NULL)";
         crudService.executeUpdate(query);
+        // bazele create inainte de hash-uirea parolelor aveau coloana de 50 de caractere
+        crudService.executeUpdate("ALTER TABLE cititori ALTER COLUMN parola SET DATA TYPE VARCHAR(200)");
     }
-    
+
     // adaugare cititor
     public void adaugaCititor(Cititor cititor) {
-        String query = String.format("INSERT INTO cititori (nume, prenume, id_cititor, parola) " +
-                                   "VALUES ('%s', '%s', %d, '%s')",
-                                   cititor.getNume(), cititor.getPrenume(), 
-                                   cititor.getIdCititor(), cititor.getParola());
-        crudService.executeUpdate(query);
+        cititor.setParola(Parole.hash(cititor.getParola()));
+        String query = "INSERT INTO cititori (nume, prenume, id_cititor, parola) VALUES (?, ?, ?, ?)";
+        int id = crudService.executeInsert(query, cititor.getNume(), cititor.getPrenume(),
+                                           cititor.getIdCititor(), cititor.getParola());
+        if (id > 0) {
+            cititor.setId(id);
+            StatisticiService.getInstance().invalideaza();
+        }
+    }
+
+    // adaugare cititori in lot; intoarce id-urile in ordinea colectiei.
+    // fiecare parola costa un PBKDF2 complet (zeci de ms la costul implicit), asa ca hash-urile
+    // se calculeaza in paralel, inainte de a deschide lotul, nu cu o conexiune ocupata
+    public int[] adaugaCititori(Collection<Cititor> cititori) {
+        cititori.parallelStream().forEach(cititor -> cititor.setParola(Parole.hash(cititor.getParola())));
+        return insereaza(cititori);
+    }
+
+    // migrare dintr-o alta baza: parolele sunt deja hash-uri PBKDF2 si se pastreaza ca atare
+    public int[] importaCititori(Collection<Cititor> cititori) {
+        for (Cititor cititor : cititori) {
+            if (!Parole.esteHashValid(cititor.getParola())) {
+                throw new IllegalArgumentException("Cititorul " + cititor.getIdCititor() + " nu are un hash de parola valid");
+            }
+        }
+        return insereaza(cititori);
     }
-    
+
+    private int[] insereaza(Collection<Cititor> cititori) {
+        List<Object[]> randuri = new ArrayList<>(cititori.size());
+        for (Cititor cititor : cititori) {
+            randuri.add(new Object[] { cititor.getNume(), cititor.getPrenume(), cititor.getIdCititor(), cititor.getParola() });
+        }
+        int[] ids = crudService.executeBatch(
+            "INSERT INTO cititori (nume, prenume, id_cititor, parola) VALUES (?, ?, ?, ?)", randuri);
+        int i = 0;
+        for (Cititor cititor : cititori) {
+            if (ids[i] > 0) {
+                cititor.setId(ids[i]);
+            }
+            i++;
+        }
+        StatisticiService.getInstance().invalideaza();
+        return ids;
+    }
+
     // obt toti cititorii
     public List<Cititor> getTotiCititorii() {
-        String query = "SELECT * FROM cititori";
-        return crudService.executeQuery(query, new CRUDService.ResultSetMapper<Cititor>() {
-            @Override
-            public Cititor map(ResultSet rs) throws SQLException {
-                Cititor cititor = new Cititor(
-                    rs.getString("nume"),
-                    rs.getString("prenume"),
-                    rs.getInt("id_cititor"),
-                    rs.getString("parola")
-                );
-                cititor.setId(rs.getInt("id"));
-                return cititor;
-            }
-        });
+        return crudService.executeQuery("SELECT * FROM cititori", cititorMapper);
     }
-    
-    // update cititor
+
+    // pagina de cititori cu id > dupaId; prima pagina se cere cu dupaId = 0
+    public Pagina<Cititor> getCititoriPagina(int dupaId, int limita) {
+        return crudService.executePage("SELECT * FROM cititori", "id", cititorMapper, Cititor::getId, dupaId, limita);
+    }
+
+    // update cititor; parola se schimba doar prin schimbaParola
     public void actualizeazaCititor(Cititor cititor) {
-        String query = String.format("UPDATE cititori SET nume='%s', prenume='%s', " +
-                                   "id_cititor=%d, parola='%s' WHERE id=%d",
-                                   cititor.getNume(), cititor.getPrenume(), 
-                                   cititor.getIdCititor(), cititor.getParola(), 
-                                   cititor.getId());
-        crudService.executeUpdate(query);
+        inchideSesiuniCititor(cititor.getId());
+        String query = "UPDATE cititori SET nume=?, prenume=?, id_cititor=? WHERE id=?";
+        crudService.executeUpdate(query, cititor.getNume(), cititor.getPrenume(),
+                                  cititor.getIdCititor(), cititor.getId());
+    }
+
+    public void schimbaParola(Cititor cititor, String parolaNoua) {
+        cititor.setParola(Parole.hash(parolaNoua));
+        inchideSesiuniCititor(cititor.getId());
+        crudService.executeUpdate("UPDATE cititori SET parola=? WHERE id=?", cititor.getParola(), cititor.getId());
     }
-    
+
     // sterge cititor
     public void stergeCititor(int idCititor) {
-        String query = String.format("DELETE FROM cititori WHERE id=%d", idCititor);
-        crudService.executeUpdate(query);
+        inchideSesiuniCititor(idCititor);
+        crudService.executeUpdate("DELETE FROM cititori WHERE id=?", idCititor);
+        StatisticiService.getInstance().invalideaza();
     }
-    
+
+    public void stergeCititor(Tranzactie tx, int idCititor) throws SQLException {
+        tx.update("DELETE FROM cititori WHERE id=?", idCititor);
+        tx.dupaCommit(() -> inchideSesiuniCititor(idCititor));
+        tx.dupaCommit(StatisticiService.getInstance()::invalideaza);
+    }
+
+    // sesiunile (cu parola sau token) ale cititorului cu cheia primara data
+    private void inchideSesiuniCititor(int id) {
+        sesiuni.values().removeIf(sesiune -> sesiune.cititor.getId() == id);
+        sesiuniToken.values().removeIf(sesiune -> sesiune.cititor.getId() == id);
+    }
+
     // cititor dupa ID
     public Cititor getCititorById(int id) {
-        String query = "SELECT * FROM cititori WHERE id=" + id;
-        List<Cititor> cititori = crudService.executeQuery(query, new CRUDService.ResultSetMapper<Cititor>() {
-            @Override
-            public Cititor map(ResultSet rs) throws SQLException {
-                Cititor cititor = new Cititor(
-                    rs.getString("nume"),
-                    rs.getString("prenume"),
-                    rs.getInt("id_cititor"),
-                    rs.getString("parola")
-                );
-                cititor.setId(rs.getInt("id"));
-                return cititor;
-            }
-        });
-        
+        List<Cititor> cititori = crudService.executeQuery("SELECT * FROM cititori WHERE id=?", cititorMapper, id);
         return cititori.isEmpty() ? null : cititori.get(0);
     }
 
+    // cautare prin indexul unic pe id_cititor (numarul de legitimatie)
+    public Cititor getCititorDupaIdCititor(int idCititor) {
+        List<Cititor> cititori = crudService.executeQuery("SELECT * FROM cititori WHERE id_cititor=?", cititorMapper, idCititor);
+        return cititori.isEmpty() ? null : cititori.get(0);
+    }
+
+    // intoarce cititorul daca parola este corecta, altfel null; o sesiune valida
+    // pentru aceeasi parola evita atat interogarea, cat si recalcularea hash-ului
+    public Cititor autentifica(int idCititor, String parola) {
+        Sesiune sesiune = sesiuni.get(idCititor);
+        if (sesiune != null && sesiune.expiraLa > System.currentTimeMillis()
+                && MessageDigest.isEqual(sesiune.amprenta, Parole.amprenta(parola, sesiune.cititor.getParola()))) {
+            return sesiune.cititor;
+        }
+
+        Cititor cititor = getCititorDupaIdCititor(idCititor);
+        if (!Parole.verifica(parola, cititor == null ? null : cititor.getParola())) {
+            return null;
+        }
+        if (Parole.necesitaRehash(cititor.getParola())) {
+            cititor.setParola(Parole.hash(parola));
+            crudService.executeUpdate("UPDATE cititori SET parola=? WHERE id=?", cititor.getParola(), cititor.getId());
+        }
+        long acum = System.currentTimeMillis();
+        sesiuni.values().removeIf(expirata -> expirata.expiraLa <= acum);
+        sesiuni.put(idCititor, new Sesiune(cititor, Parole.amprenta(parola, cititor.getParola()), acum + TTL_SESIUNE_MS));
+        return cititor;
+    }
+
+    // cititorul autentificat recent, daca sesiunea lui nu a expirat
+    public Cititor getCititorAutentificat(int idCititor) {
+        Sesiune sesiune = sesiuni.get(idCititor);
+        if (sesiune == null) {
+            return null;
+        }
+        if (sesiune.expiraLa <= System.currentTimeMillis()) {
+            sesiuni.remove(idCititor, sesiune);
+            return null;
+        }
+        return sesiune.cititor;
+    }
+
+    public void inchideSesiune(int idCititor) {
+        sesiuni.remove(idCititor);
+        sesiuniToken.values().removeIf(sesiune -> sesiune.cititor.getIdCititor() == idCititor);
+    }
+
+    // ca autentifica, dar intoarce un token opac (sau null) valabil TTL_SESIUNE_MS
+    public String autentificaCuToken(int idCititor, String parola) {
+        Cititor cititor = autentifica(idCititor, parola);
+        if (cititor == null) {
+            return null;
+        }
+        byte[] octeti = new byte[32];
+        random.nextBytes(octeti);
+        String token = Base64.getUrlEncoder().withoutPadding().encodeToString(octeti);
+        long acum = System.currentTimeMillis();
+        sesiuniToken.values().removeIf(expirata -> expirata.expiraLa <= acum);
+        sesiuniToken.put(token, new Sesiune(cititor, null, acum + TTL_SESIUNE_MS));
+        return token;
+    }
+
+    // numarul de legitimatie al cititorului din sesiunea tokenului; null daca tokenul nu e valid
+    public Integer getIdCititorDupaToken(String token) {
+        Sesiune sesiune = token == null ? null : sesiuniToken.get(token);
+        if (sesiune == null) {
+            return null;
+        }
+        if (sesiune.expiraLa <= System.currentTimeMillis()) {
+            sesiuniToken.remove(token, sesiune);
+            return null;
+        }
+        return sesiune.cititor.getIdCititor();
+    }
+
+    public void inchideSesiuneToken(String token) {
+        sesiuniToken.remove(token);
+    }
+
+    public long getTtlSesiuneMs() {
+        return TTL_SESIUNE_MS;
+    }
+
     public void inregistreazaCititor(Cititor cititor) {
         if (getCititorById(cititor.getId()) != null) {
             System.out.println("Cititorul cu ID-ul " + cititor.getId() + " exista deja.");
@@ -106,16 +262,6 @@ public class CititorService {
     }
 
     public int countCititori() {
-        String sql = "SELECT COUNT(*) FROM cititori";
-        try (Connection conn = DatabaseConnection.getConnection();
-            Statement stmt = conn.createStatement();
-            ResultSet rs = stmt.executeQuery(sql)) {
-            if (rs.next()) {
-                return rs.getInt(1);
-            }
-        } catch (SQLException e) {
-            e.printStackTrace();
-        }
-        return 0;
+        return crudService.executeCount("SELECT COUNT(*) FROM cititori");
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,61 @@
+package withDB;
+
+// criteriile unei cautari combinate; cele nesetate nu restrang rezultatul
+public class CriteriiCautare {
+    private final int anMinim;
+    private final int anMaxim;
+    private final Integer idSectiune;
+    private final String genLiterar;
+    private final boolean doarDisponibile;
+
+    private CriteriiCautare(Builder builder) {
+        this.anMinim = builder.anMinim;
+        this.anMaxim = builder.anMaxim;
+        this.idSectiune = builder.idSectiune;
+        this.genLiterar = builder.genLiterar;
+        this.doarDisponibile = builder.doarDisponibile;
+    }
+
+    public int getAnMinim() { return anMinim; }
+    public int getAnMaxim() { return anMaxim; }
+    public Integer getIdSectiune() { return idSectiune; }
+    public String getGenLiterar() { return genLiterar; }
+    public boolean isDoarDisponibile() { return doarDisponibile; }
+
+    public static class Builder {
+        private int anMinim = Integer.MIN_VALUE;
+        private int anMaxim = Integer.MAX_VALUE;
+        private Integer idSectiune;
+        private String genLiterar;
+        private boolean doarDisponibile;
+
+        // interval inchis [anMinim, anMaxim]
+        public Builder setAnIntre(int anMinim, int anMaxim) {
+            if (anMinim > anMaxim) {
+                throw new IllegalArgumentException("Anul de inceput este dupa anul de sfarsit.");
+            }
+            this.anMinim = anMinim;
+            this.anMaxim = anMaxim;
+            return this;
+        }
+
+        public Builder setSectiune(Sectiune sectiune) {
+            this.idSectiune = sectiune.getId();
+            return this;
+        }
+
+        public Builder setGenLiterar(String genLiterar) {
+            this.genLiterar = genLiterar;
+            return this;
+        }
+
+        public Builder setDoarDisponibile(boolean doarDisponibile) {
+            this.doarDisponibile = doarDisponibile;
+            return this;
+        }
+
+        public CriteriiCautare build() {
+            return new CriteriiCautare(this);
+        }
+    }
+}
@@ -1,23 +1,75 @@
 package withDB;
 
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
 import java.sql.Connection;
 import java.sql.DriverManager;
+import java.sql.PreparedStatement;
 import java.sql.SQLException;
-import java.sql.Statement;
+import java.sql.SQLTimeoutException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
+// pool de conexiuni: serviciile iau conexiuni doar prin getConnection(),
+// iar close() pe conexiunea primita o returneaza in pool
 public class DatabaseConnection {
-    private static DatabaseConnection instance;
-    private Connection connection;
-    
+    private static volatile DatabaseConnection instance;
+
     private static final String JDBC_URL = "jdbc:h2:./withDB/biblioteca";
     private static final String USER = "sa";
     private static final String PASSWORD = "";
-    
+
+    // configurare pool (se poate suprascrie cu -Dbiblioteca.pool.*)
+    private static final int MIN_SIZE = Integer.getInteger("biblioteca.pool.min", 2);
+    private static final int MAX_SIZE = Integer.getInteger("biblioteca.pool.max", 10);
+    private static final long IDLE_TIMEOUT_MS = Long.getLong("biblioteca.pool.idleTimeoutMs", 60_000L);
+    private static final long ACQUIRE_TIMEOUT_MS = Long.getLong("biblioteca.pool.acquireTimeoutMs", 5_000L);
+    private static final int VALIDATION_TIMEOUT_S = 2;
+    private static final int STATEMENT_CACHE_SIZE = Integer.getInteger("biblioteca.pool.statementCache", 64);
+
+    // conexiunile libere; cea mai recent folosita e la inceput
+    private final LinkedBlockingDeque<PooledConnection> idle = new LinkedBlockingDeque<>();
+    private final Semaphore permits = new Semaphore(MAX_SIZE, true);
+    private final AtomicInteger total = new AtomicInteger();
+    private final AtomicInteger borrowed = new AtomicInteger();
+    private final AtomicLong borrowCount = new AtomicLong();
+    private final AtomicLong waitNanos = new AtomicLong();
+    private final AtomicLong maxWaitNanos = new AtomicLong();
+    private final AtomicLong timeouts = new AtomicLong();
+    private final ScheduledExecutorService evictor;
+    private volatile boolean closed;
+
+    private DatabaseConnection() {
+        for (int i = 0; i < MIN_SIZE; i++) {
+            try {
+                idle.offerLast(openPhysical());
+            } catch (SQLException e) {
+                System.out.println("Eroare la crearea conexiunii: " + e.getMessage());
+                break;
+            }
+        }
+        evictor = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "db-pool-evictor");
+            t.setDaemon(true);
+            return t;
+        });
+        long period = Math.max(1_000L, IDLE_TIMEOUT_MS / 2);
+        evictor.scheduleAtFixedRate(this::evictIdle, period, period, TimeUnit.MILLISECONDS);
+    }
+
     public static Connection getConnection() throws SQLException {
-        return DriverManager.getConnection(JDBC_URL, USER, PASSWORD);
+        return getInstance().borrow();
     }
 
-    
     public static DatabaseConnection getInstance() {
         if (instance == null) {
             synchronized (DatabaseConnection.class) {
@@ -28,14 +80,282 @@ public class DatabaseConnection {
         }
         return instance;
     }
-    
-    public void closeConnection() {
+
+    // PreparedStatement din cache-ul LRU al conexiunii; nu se inchide de apelant
+    public static PreparedStatement prepareCached(Connection conn, String sql, boolean generatedKeys) throws SQLException {
+        if (Proxy.isProxyClass(conn.getClass()) && Proxy.getInvocationHandler(conn) instanceof LeasedConnection) {
+            return ((LeasedConnection) Proxy.getInvocationHandler(conn)).prepareCached(sql, generatedKeys);
+        }
+        throw new SQLException("Conexiunea nu provine din pool.");
+    }
+
+    private Connection borrow() throws SQLException {
+        if (closed) {
+            throw new SQLException("Pool-ul de conexiuni este inchis.");
+        }
+        long start = System.nanoTime();
+        try {
+            if (!permits.tryAcquire(ACQUIRE_TIMEOUT_MS, TimeUnit.MILLISECONDS)) {
+                timeouts.incrementAndGet();
+                throw new SQLTimeoutException("Nicio conexiune libera dupa " + ACQUIRE_TIMEOUT_MS + " ms.");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Asteptarea unei conexiuni a fost intrerupta.", e);
+        }
+
+        try {
+            PooledConnection pooled;
+            while ((pooled = idle.pollFirst()) != null) {
+                if (pooled.isValid()) {
+                    break;
+                }
+                pooled.closePhysical();
+            }
+            if (pooled == null) {
+                pooled = openPhysical();
+            }
+            recordWait(System.nanoTime() - start);
+            borrowed.incrementAndGet();
+            return pooled.lease();
+        } catch (SQLException | RuntimeException e) {
+            permits.release();
+            throw e;
+        }
+    }
+
+    private void release(PooledConnection pooled) {
+        borrowed.decrementAndGet();
         try {
-            if (connection != null && !connection.isClosed()) {
-                connection.close();
+            if (closed || !pooled.reset()) {
+                pooled.closePhysical();
+            } else {
+                idle.offerFirst(pooled);
+            }
+        } finally {
+            permits.release();
+        }
+    }
+
+    private PooledConnection openPhysical() throws SQLException {
+        Connection physical = DriverManager.getConnection(JDBC_URL, USER, PASSWORD);
+        total.incrementAndGet();
+        return new PooledConnection(physical);
+    }
+
+    private void recordWait(long nanos) {
+        borrowCount.incrementAndGet();
+        waitNanos.addAndGet(nanos);
+        maxWaitNanos.accumulateAndGet(nanos, Math::max);
+    }
+
+    // inchide conexiunile nefolosite de mai mult de IDLE_TIMEOUT_MS, pastrand minimul
+    private void evictIdle() {
+        long limita = System.currentTimeMillis() - IDLE_TIMEOUT_MS;
+        while (total.get() > MIN_SIZE) {
+            PooledConnection oldest = idle.pollLast();
+            if (oldest == null) {
+                return;
+            }
+            if (oldest.lastUsed > limita) {
+                idle.offerLast(oldest);
+                return;
+            }
+            oldest.closePhysical();
+        }
+    }
+
+    public PoolStats getStats() {
+        long count = borrowCount.get();
+        return new PoolStats(
+            total.get(),
+            borrowed.get(),
+            idle.size(),
+            count,
+            count == 0 ? 0 : waitNanos.get() / count / 1_000,
+            maxWaitNanos.get() / 1_000,
+            timeouts.get()
+        );
+    }
+
+    public void closeConnection() {
+        closed = true;
+        evictor.shutdownNow();
+        PooledConnection pooled;
+        while ((pooled = idle.pollFirst()) != null) {
+            pooled.closePhysical();
+        }
+    }
+
+    // conexiunea fizica, cu cache-ul ei de statement-uri; la fiecare imprumut primeste un proxy nou
+    private final class PooledConnection {
+        private final Connection physical;
+        private volatile long lastUsed = System.currentTimeMillis();
+        // cache LRU de PreparedStatement dupa textul SQL
+        private final Map<String, PreparedStatement> statements =
+            new LinkedHashMap<String, PreparedStatement>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, PreparedStatement> eldest) {
+                    if (size() > STATEMENT_CACHE_SIZE) {
+                        closeQuietly(eldest.getValue());
+                        return true;
+                    }
+                    return false;
+                }
+            };
+
+        private PooledConnection(Connection physical) {
+            this.physical = physical;
+        }
+
+        private PreparedStatement prepareCached(String sql, boolean generatedKeys) throws SQLException {
+            String key = generatedKeys ? "K:" + sql : sql;
+            PreparedStatement stmt = statements.get(key);
+            if (stmt == null || stmt.isClosed()) {
+                stmt = generatedKeys
+                    ? physical.prepareStatement(sql, java.sql.Statement.RETURN_GENERATED_KEYS)
+                    : physical.prepareStatement(sql);
+                statements.put(key, stmt);
+            } else {
+                stmt.clearParameters();
+            }
+            return stmt;
+        }
+
+        private void closeQuietly(PreparedStatement stmt) {
+            try {
+                stmt.close();
+            } catch (SQLException e) {
+                // statement-ul se inchide oricum odata cu conexiunea
+            }
+        }
+
+        private Connection lease() {
+            return (Connection) Proxy.newProxyInstance(
+                Connection.class.getClassLoader(), new Class<?>[] { Connection.class }, new LeasedConnection(this));
+        }
+
+        private boolean isValid() {
+            try {
+                return physical.isValid(VALIDATION_TIMEOUT_S);
+            } catch (SQLException e) {
+                return false;
+            }
+        }
+
+        // readuce conexiunea in starea implicita inainte sa intre in pool
+        private boolean reset() {
+            lastUsed = System.currentTimeMillis();
+            try {
+                if (physical.isClosed()) {
+                    return false;
+                }
+                if (!physical.getAutoCommit()) {
+                    physical.rollback();
+                    physical.setAutoCommit(true);
+                }
+                return true;
+            } catch (SQLException e) {
+                return false;
+            }
+        }
+
+        private void closePhysical() {
+            total.decrementAndGet();
+            statements.values().forEach(this::closeQuietly);
+            statements.clear();
+            try {
+                physical.close();
+            } catch (SQLException e) {
+                System.out.println("Eroare la închidere: " + e.getMessage());
+            }
+        }
+
+    }
+
+    // un singur imprumut al unei conexiuni: dupa close() proxy-ul ramane invalid, chiar daca
+    // conexiunea fizica a fost intre timp data altui apelant
+    private final class LeasedConnection implements InvocationHandler {
+        private final PooledConnection pooled;
+        private volatile boolean active = true;
+
+        private LeasedConnection(PooledConnection pooled) {
+            this.pooled = pooled;
+        }
+
+        private PreparedStatement prepareCached(String sql, boolean generatedKeys) throws SQLException {
+            checkActive();
+            return pooled.prepareCached(sql, generatedKeys);
+        }
+
+        private void checkActive() throws SQLException {
+            if (!active) {
+                throw new SQLException("Conexiunea a fost deja returnata in pool.");
             }
-        } catch (SQLException e) {
-            System.out.println("Eroare la închidere: " + e.getMessage());
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "close":
+                    synchronized (this) {
+                        if (active) {
+                            active = false;
+                            release(pooled);
+                        }
+                    }
+                    return null;
+                case "isClosed":
+                    return !active || pooled.physical.isClosed();
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "toString":
+                    return "Pooled[" + pooled.physical + "]";
+                default:
+                    checkActive();
+                    try {
+                        return method.invoke(pooled.physical, args);
+                    } catch (InvocationTargetException e) {
+                        throw e.getCause();
+                    }
+            }
+        }
+    }
+
+    public static class PoolStats {
+        private final int total;
+        private final int borrowed;
+        private final int idle;
+        private final long borrowCount;
+        private final long avgWaitMicros;
+        private final long maxWaitMicros;
+        private final long timeouts;
+
+        PoolStats(int total, int borrowed, int idle, long borrowCount,
+                  long avgWaitMicros, long maxWaitMicros, long timeouts) {
+            this.total = total;
+            this.borrowed = borrowed;
+            this.idle = idle;
+            this.borrowCount = borrowCount;
+            this.avgWaitMicros = avgWaitMicros;
+            this.maxWaitMicros = maxWaitMicros;
+            this.timeouts = timeouts;
+        }
+
+        public int getTotal() { return total; }
+        public int getBorrowed() { return borrowed; }
+        public int getIdle() { return idle; }
+        public long getBorrowCount() { return borrowCount; }
+        public long getAvgWaitMicros() { return avgWaitMicros; }
+        public long getMaxWaitMicros() { return maxWaitMicros; }
+        public long getTimeouts() { return timeouts; }
+
+        @Override
+        public String toString() {
+            return String.format("total=%d, imprumutate=%d, libere=%d, cereri=%d, asteptare medie=%dus, asteptare max=%dus, timeout-uri=%d",
+                total, borrowed, idle, borrowCount, avgWaitMicros, maxWaitMicros, timeouts);
         }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,33 @@
+package withDB;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.HashMap;
+import java.util.Map;
+
+// identity map pe durata unei interogari: randurile care refera acelasi
+// autor/aceeasi sectiune primesc aceeasi instanta, iar textele repetate sunt partajate
+public class IdentityMap {
+    private final Map<Class<?>, Map<Integer, Object>> entitati = new HashMap<>();
+    private final Map<String, String> texte = new HashMap<>();
+
+    // entitatea cu id-ul dat; mapper-ul se apeleaza doar prima data cand apare id-ul
+    public <E> E resolve(Class<E> tip, int id, CRUDService.ResultSetMapper<E> mapper, ResultSet rs) throws SQLException {
+        Map<Integer, Object> dupaId = entitati.computeIfAbsent(tip, t -> new HashMap<>());
+        Object existent = dupaId.get(id);
+        if (existent != null) {
+            return tip.cast(existent);
+        }
+        E nou = mapper.map(rs, this);
+        dupaId.put(id, nou);
+        return nou;
+    }
+
+    public String intern(String text) {
+        if (text == null) {
+            return null;
+        }
+        String existent = texte.putIfAbsent(text, text);
+        return existent != null ? existent : text;
+    }
+}
@@ -0,0 +1,184 @@
+package withDB;
+
+import java.sql.Date;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+public class ImprumutService {
+    private static ImprumutService instance;
+    private final CRUDService<Imprumut> crudService;
+
+    private static final String SELECT_IMPRUMUTURI = "SELECT c.*, " +
+                        "a.prenume AS autor_prenume, a.nume AS autor_nume, a.nationalitate AS autor_nationalitate, " +
+                        "s.nume_sectiune, s.locatie, " +
+                        "ci.nume AS cititor_nume, ci.prenume AS cititor_prenume, ci.id_cititor AS cititor_id_cititor, " +
+                        "ci.parola AS cititor_parola, " +
+                        "i.id AS imprumut_id, i.id_cititor AS imprumut_id_cititor, i.data_imprumut, i.data_returnare, i.activ " +
+                        "FROM imprumuturi i " +
+                        "JOIN carti c ON i.id_carte = c.id " +
+                        "JOIN autori a ON c.id_autor = a.id " +
+                        "JOIN sectiuni s ON c.id_sectiune = s.id " +
+                        "JOIN cititori ci ON i.id_cititor = ci.id";
+
+    private static final String INSERT_IMPRUMUT = "INSERT INTO imprumuturi " +
+                        "(id_cititor, id_carte, data_imprumut, data_returnare, activ) VALUES (?, ?, ?, ?, ?)";
+    private static final String FINALIZEAZA_IMPRUMUT = "UPDATE imprumuturi SET activ = FALSE WHERE id = ?";
+
+    private final CRUDService.ResultSetMapper<Cititor> cititorDinRand = new CRUDService.ResultSetMapper<Cititor>() {
+        @Override
+        public Cititor map(ResultSet rs) throws SQLException {
+            Cititor cititor = new Cititor(
+                rs.getString("cititor_nume"),
+                rs.getString("cititor_prenume"),
+                rs.getInt("cititor_id_cititor"),
+                rs.getString("cititor_parola")
+            );
+            cititor.setId(rs.getInt("imprumut_id_cititor"));
+            return cititor;
+        }
+    };
+
+    private final CRUDService.ResultSetMapper<Imprumut> imprumutMapper = new CRUDService.ResultSetMapper<Imprumut>() {
+        @Override
+        public Imprumut map(ResultSet rs) throws SQLException {
+            return map(rs, new IdentityMap());
+        }
+
+        @Override
+        public Imprumut map(ResultSet rs, IdentityMap identitati) throws SQLException {
+            Cititor cititor = identitati.resolve(Cititor.class, rs.getInt("imprumut_id_cititor"), cititorDinRand, rs);
+            Carte carte = CarteService.getInstance().getCarteMapper().map(rs, identitati);
+            Imprumut imprumut = new Imprumut(
+                cititor,
+                carte,
+                rs.getDate("data_imprumut").toLocalDate(),
+                rs.getDate("data_returnare").toLocalDate()
+            );
+            if (!rs.getBoolean("activ")) {
+                imprumut.finalizeazaImprumut();
+            }
+            imprumut.setId(rs.getInt("imprumut_id"));
+            return imprumut;
+        }
+    };
+
+    private ImprumutService() {
+        crudService = CRUDService.getInstance();
+    }
+
+    public static synchronized ImprumutService getInstance() {
+        if (instance == null) {
+            instance = new ImprumutService();
+        }
+        return instance;
+    }
+
+    // creare tabel
+    public void createTable() {
+        String query = "CREATE TABLE IF NOT EXISTS imprumuturi (" +
+                       "id INT AUTO_INCREMENT PRIMARY KEY, " +
+                       "id_cititor INT NOT NULL, " +
+                       "id_carte INT NOT NULL, " +
+                       "data_imprumut DATE NOT NULL, " +
+                       "data_returnare DATE NOT NULL, " +
+                       "activ BOOLEAN DEFAULT TRUE, " +
+                       "FOREIGN KEY (id_cititor) REFERENCES cititori(id) ON DELETE CASCADE, " +
+                       "FOREIGN KEY (id_carte) REFERENCES carti(id) ON DELETE CASCADE)";
+        crudService.executeUpdate(query);
+
+        // istoricul si imprumuturile active ale unui cititor / ale unei carti,
+        // plus imprumuturile active ordonate dupa termen pentru verificarea celor expirate
+        crudService.executeUpdate("CREATE INDEX IF NOT EXISTS idx_imprumuturi_cititor ON imprumuturi(id_cititor, activ)");
+        crudService.executeUpdate("CREATE INDEX IF NOT EXISTS idx_imprumuturi_carte ON imprumuturi(id_carte, activ)");
+        crudService.executeUpdate("CREATE INDEX IF NOT EXISTS idx_imprumuturi_termen ON imprumuturi(activ, data_returnare)");
+    }
+
+    // adaugare imprumut
+    public void adaugaImprumut(Imprumut imprumut) {
+        int id = crudService.executeInsert(INSERT_IMPRUMUT, parametriInsert(imprumut));
+        if (id > 0) {
+            imprumut.setId(id);
+        }
+    }
+
+    public void adaugaImprumut(Tranzactie tx, Imprumut imprumut) throws SQLException {
+        int id = tx.insert(INSERT_IMPRUMUT, parametriInsert(imprumut));
+        if (id > 0) {
+            imprumut.setId(id);
+        }
+    }
+
+    private static Object[] parametriInsert(Imprumut imprumut) {
+        return new Object[] { imprumut.getCititor().getId(), imprumut.getCarteImprumutata().getId(),
+                              Date.valueOf(imprumut.getDataImprumut()), Date.valueOf(imprumut.getDataReturnare()),
+                              imprumut.esteActiv() };
+    }
+
+    // marcheaza imprumutul ca returnat
+    public void finalizeazaImprumut(Imprumut imprumut) {
+        imprumut.finalizeazaImprumut();
+        crudService.executeUpdate(FINALIZEAZA_IMPRUMUT, imprumut.getId());
+    }
+
+    // in tranzactie obiectul se marcheaza ca returnat abia dupa commit, de catre apelant
+    public void finalizeazaImprumut(Tranzactie tx, Imprumut imprumut) throws SQLException {
+        tx.update(FINALIZEAZA_IMPRUMUT, imprumut.getId());
+    }
+
+    // id carte -> numarul total de imprumuturi (active si returnate), pentru popularitate
+    public Map<Integer, Integer> getNumarImprumuturiPeCarte() {
+        Map<Integer, Integer> rezultat = new HashMap<>();
+        if (!crudService.forEachRow("SELECT id_carte, COUNT(*) AS numar FROM imprumuturi GROUP BY id_carte",
+                (rs, identitati) -> rezultat.put(rs.getInt("id_carte"), rs.getInt("numar")))) {
+            throw new IllegalStateException("Numarul de imprumuturi nu a putut fi citit");
+        }
+        return rezultat;
+    }
+
+    public int getNumarImprumuturi(int idCarte) {
+        return crudService.executeCount("SELECT COUNT(*) FROM imprumuturi WHERE id_carte = ?", idCarte);
+    }
+
+    // imprumutul activ al cartii la cititorul dat, sau null
+    public Imprumut getImprumutActiv(int idCititor, int idCarte) {
+        List<Imprumut> imprumuturi = crudService.executeQuery(
+            SELECT_IMPRUMUTURI + " WHERE i.id_carte = ? AND i.activ = TRUE AND i.id_cititor = ?",
+            imprumutMapper, idCarte, idCititor);
+        return imprumuturi.isEmpty() ? null : imprumuturi.get(0);
+    }
+
+    public List<Imprumut> getImprumuturiActive() {
+        return crudService.executeQuery(SELECT_IMPRUMUTURI + " WHERE i.activ = TRUE ORDER BY i.data_returnare",
+                                        imprumutMapper);
+    }
+
+    public List<Imprumut> getImprumuturiActiveCititor(int idCititor) {
+        return crudService.executeQuery(SELECT_IMPRUMUTURI + " WHERE i.id_cititor = ? AND i.activ = TRUE",
+                                        imprumutMapper, idCititor);
+    }
+
+    // imprumuturile active cu termenul depasit la data data
+    public List<Imprumut> getImprumuturiExpirate(LocalDate data) {
+        return crudService.executeQuery(
+            SELECT_IMPRUMUTURI + " WHERE i.activ = TRUE AND i.data_returnare < ? ORDER BY i.data_returnare",
+            imprumutMapper, Date.valueOf(data));
+    }
+
+    // imprumuturile returnate
+    public List<Imprumut> getIstoric() {
+        return crudService.executeQuery(SELECT_IMPRUMUTURI + " WHERE i.activ = FALSE ORDER BY i.id", imprumutMapper);
+    }
+
+    public List<Imprumut> getIstoricCititor(int idCititor) {
+        return crudService.executeQuery(SELECT_IMPRUMUTURI + " WHERE i.id_cititor = ? AND i.activ = FALSE ORDER BY i.id",
+                                        imprumutMapper, idCititor);
+    }
+
+    public int countImprumuturiActive() {
+        return crudService.executeCount("SELECT COUNT(*) FROM imprumuturi WHERE activ = TRUE");
+    }
+}
@@ -0,0 +1,175 @@
+package withDB;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.Stream;
+
+// index pentru cautari combinate dupa an, sectiune, gen si disponibilitate. Fiecare valoare
+// de sectiune / gen / an are un bitmap al id-urilor cartilor; anii sunt chei intr-un TreeMap,
+// deci un interval de ani este reuniunea bitmap-urilor din subMap, fara resortare la scriere.
+// O interogare este intersectia bitmap-urilor criteriilor setate.
+public class IndexAtribute implements IndexCarti {
+    private final BitSet toate = new BitSet();
+    private final BitSet disponibile = new BitSet();
+    private final Map<Integer, BitSet> dupaSectiune = new HashMap<>();
+    private final Map<String, BitSet> dupaGen = new HashMap<>();
+    private final TreeMap<Integer, BitSet> dupaAn = new TreeMap<>();
+    // atributele fiecarei carti, indexate dupa id, ca sa o putem scoate din bitmap-uri
+    private int[] anCarte = new int[0];
+    private int[] sectiuneCarte = new int[0];
+    private int[] autorCarte = new int[0];
+    private String[] genCarte = new String[0];
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    public static IndexAtribute construieste(Stream<Carte> carti) {
+        IndexAtribute index = new IndexAtribute();
+        carti.forEach(index::adauga);
+        return index;
+    }
+
+    @Override
+    public void adauga(Carte carte) {
+        lock.writeLock().lock();
+        try {
+            int id = carte.getId();
+            scoate(id);
+            asiguraCapacitate(id);
+            toate.set(id);
+            disponibile.set(id, carte.esteDisponibil());
+            anCarte[id] = carte.getAnPublicatie();
+            sectiuneCarte[id] = carte.getSectiune().getId();
+            autorCarte[id] = carte.getAutor().getId();
+            dupaSectiune.computeIfAbsent(sectiuneCarte[id], s -> new BitSet()).set(id);
+            dupaAn.computeIfAbsent(anCarte[id], a -> new BitSet()).set(id);
+            if (carte instanceof Roman && ((Roman) carte).getGenLiterar() != null) {
+                genCarte[id] = ((Roman) carte).getGenLiterar();
+                dupaGen.computeIfAbsent(genCarte[id], g -> new BitSet()).set(id);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void actualizeaza(Carte carte) {
+        adauga(carte);
+    }
+
+    @Override
+    public void elimina(int idCarte) {
+        lock.writeLock().lock();
+        try {
+            scoate(idCarte);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void eliminaAutor(int idAutor) {
+        lock.writeLock().lock();
+        try {
+            for (int id = toate.nextSetBit(0); id >= 0; id = toate.nextSetBit(id + 1)) {
+                if (autorCarte[id] == idAutor) {
+                    scoate(id);
+                }
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // numele autorului nu este un criteriu de cautare aici
+    @Override
+    public void actualizeazaAutor(Autor autor) {
+    }
+
+    @Override
+    public void disponibilitateSchimbata(int idCarte, boolean disponibila) {
+        lock.writeLock().lock();
+        try {
+            if (toate.get(idCarte)) {
+                disponibile.set(idCarte, disponibila);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // id-urile (crescator) cartilor care indeplinesc toate criteriile
+    public int[] cauta(CriteriiCautare criterii) {
+        lock.readLock().lock();
+        try {
+            BitSet rezultat = (BitSet) toate.clone();
+            if (criterii.getIdSectiune() != null) {
+                rezultat.and(dupaSectiune.getOrDefault(criterii.getIdSectiune(), new BitSet()));
+            }
+            if (criterii.getGenLiterar() != null) {
+                rezultat.and(dupaGen.getOrDefault(criterii.getGenLiterar(), new BitSet()));
+            }
+            if (criterii.isDoarDisponibile()) {
+                rezultat.and(disponibile);
+            }
+            if (criterii.getAnMinim() != Integer.MIN_VALUE || criterii.getAnMaxim() != Integer.MAX_VALUE) {
+                rezultat.and(interval(criterii.getAnMinim(), criterii.getAnMaxim()));
+            }
+            return rezultat.stream().toArray();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return toate.cardinality();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // cartile cu anMinim <= an <= anMaxim
+    private BitSet interval(int anMinim, int anMaxim) {
+        BitSet rezultat = new BitSet();
+        NavigableMap<Integer, BitSet> ani = dupaAn.subMap(anMinim, true, anMaxim, true);
+        for (BitSet carti : ani.values()) {
+            rezultat.or(carti);
+        }
+        return rezultat;
+    }
+
+    private void scoate(int id) {
+        if (!toate.get(id)) {
+            return;
+        }
+        toate.clear(id);
+        disponibile.clear(id);
+        dupaSectiune.get(sectiuneCarte[id]).clear(id);
+        BitSet an = dupaAn.get(anCarte[id]);
+        an.clear(id);
+        if (an.isEmpty()) {
+            dupaAn.remove(anCarte[id]);
+        }
+        if (genCarte[id] != null) {
+            dupaGen.get(genCarte[id]).clear(id);
+            genCarte[id] = null;
+        }
+    }
+
+    private void asiguraCapacitate(int id) {
+        if (id < anCarte.length) {
+            return;
+        }
+        int capacitate = Math.max(id + 1, anCarte.length * 2);
+        anCarte = Arrays.copyOf(anCarte, capacitate);
+        sectiuneCarte = Arrays.copyOf(sectiuneCarte, capacitate);
+        autorCarte = Arrays.copyOf(autorCarte, capacitate);
+        genCarte = Arrays.copyOf(genCarte, capacitate);
+    }
+}
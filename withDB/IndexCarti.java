@@ -0,0 +1,22 @@
+package withDB;
+
+// structura din memorie construita peste carti, tinuta la zi de CarteService la fiecare scriere
+interface IndexCarti {
+    void adauga(Carte carte);
+
+    void actualizeaza(Carte carte);
+
+    void elimina(int idCarte);
+
+    void eliminaAutor(int idAutor);
+
+    void actualizeazaAutor(Autor autor);
+
+    // la imprumut si returnare; indexurile care nu tin cont de disponibilitate o ignora
+    default void disponibilitateSchimbata(int idCarte, boolean disponibila) {
+    }
+
+    // numarul total de imprumuturi al cartii, citit dupa un imprumut nou
+    default void imprumuturiNumarate(int idCarte, int numar) {
+    }
+}
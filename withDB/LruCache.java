@@ -0,0 +1,85 @@
+package withDB;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Predicate;
+
+// cache LRU marginit, folosit de servicii pentru entitati care se schimba rar.
+// Fiecare invalidare creste versiunea; o valoare citita din baza de date inainte de o
+// invalidare se pune cu putIfVersion si este refuzata, ca sa nu reintre in cache date vechi
+public class LruCache<K, V> {
+    private final Map<K, V> map;
+    private long version;
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+
+    public LruCache(int maxSize) {
+        this.map = new LinkedHashMap<K, V>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<K, V> eldest) {
+                return size() > maxSize;
+            }
+        };
+    }
+
+    public synchronized V get(K key) {
+        V value = map.get(key);
+        if (value == null) {
+            misses.incrementAndGet();
+        } else {
+            hits.incrementAndGet();
+        }
+        return value;
+    }
+
+    public synchronized void put(K key, V value) {
+        map.put(key, value);
+    }
+
+    // se citeste inainte de interogarea care va umple cache-ul
+    public synchronized long getVersion() {
+        return version;
+    }
+
+    // pune valoarea doar daca nu a existat nicio invalidare de la getVersion()
+    public synchronized boolean putIfVersion(K key, V value, long expectedVersion) {
+        if (version != expectedVersion) {
+            return false;
+        }
+        map.put(key, value);
+        return true;
+    }
+
+    public synchronized void invalidate(K key) {
+        version++;
+        map.remove(key);
+    }
+
+    public synchronized void invalidateIf(Predicate<V> conditie) {
+        version++;
+        map.values().removeIf(conditie);
+    }
+
+    public synchronized void clear() {
+        version++;
+        map.clear();
+    }
+
+    public synchronized int size() {
+        return map.size();
+    }
+
+    public long getHits() {
+        return hits.get();
+    }
+
+    public long getMisses() {
+        return misses.get();
+    }
+
+    @Override
+    public String toString() {
+        return String.format("dimensiune=%d, hit=%d, miss=%d", size(), getHits(), getMisses());
+    }
+}
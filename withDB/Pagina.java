@@ -0,0 +1,27 @@
+package withDB;
+
+import java.util.List;
+
+// o pagina dintr-o listare paginata dupa cheie (id > continuare ORDER BY id)
+public class Pagina<T> {
+    private final List<T> elemente;
+    private final Integer continuare;
+
+    public Pagina(List<T> elemente, Integer continuare) {
+        this.elemente = elemente;
+        this.continuare = continuare;
+    }
+
+    public List<T> getElemente() {
+        return elemente;
+    }
+
+    // id-ul de la care se cere pagina urmatoare; null daca aceasta este ultima pagina
+    public Integer getContinuare() {
+        return continuare;
+    }
+
+    public boolean areUrmatoare() {
+        return continuare != null;
+    }
+}
@@ -0,0 +1,121 @@
+package withDB;
+
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.security.spec.KeySpec;
+import java.util.Base64;
+import javax.crypto.SecretKeyFactory;
+import javax.crypto.spec.PBEKeySpec;
+
+// parolele cititorilor se pastreaza ca PBKDF2 cu sare aleatoare:
+//   pbkdf2$<iteratii>$<sare base64>$<hash base64>
+// costul (numarul de iteratii) se configureaza cu biblioteca.parola.iteratii
+final class Parole {
+    private static final String PREFIX = "pbkdf2";
+    private static final String ALGORITM = "PBKDF2WithHmacSHA256";
+    private static final int ITERATII = Integer.getInteger("biblioteca.parola.iteratii", 100_000);
+    private static final int OCTETI_SARE = 16;
+    private static final int BITI_HASH = 256;
+    private static final SecureRandom RANDOM = new SecureRandom();
+    // folosit cand cititorul nu exista, ca un ID gresit sa coste cat o parola gresita
+    private static final String HASH_FICTIV = hash("");
+
+    private Parole() {}
+
+    static String hash(String parola) {
+        byte[] sare = new byte[OCTETI_SARE];
+        RANDOM.nextBytes(sare);
+        return format(ITERATII, sare, pbkdf2(parola, sare, ITERATII));
+    }
+
+    static boolean esteHash(String valoare) {
+        return valoare != null && valoare.startsWith(PREFIX + "$");
+    }
+
+    // un hash complet si bine format, ca la importul cititorilor dintr-o alta baza
+    static boolean esteHashValid(String valoare) {
+        return esteHash(valoare) && parseaza(valoare) != null;
+    }
+
+    // compara in timp constant; valorile vechi, salvate in clar, sunt acceptate
+    // ca sa poata fi convertite la prima autentificare; un hash corupt nu se potriveste cu nimic
+    static boolean verifica(String parola, String stocat) {
+        if (stocat == null) {
+            verifica(parola, HASH_FICTIV);
+            return false;
+        }
+        if (!esteHash(stocat)) {
+            return MessageDigest.isEqual(parola.getBytes(StandardCharsets.UTF_8), stocat.getBytes(StandardCharsets.UTF_8));
+        }
+        HashStocat hash = parseaza(stocat);
+        if (hash == null) {
+            System.err.println("Hash de parola invalid in baza de date");
+            verifica(parola, HASH_FICTIV);
+            return false;
+        }
+        return MessageDigest.isEqual(hash.valoare, pbkdf2(parola, hash.sare, hash.iteratii));
+    }
+
+    // hash-urile vechi (in clar sau cu alt cost) se refac dupa o autentificare reusita
+    static boolean necesitaRehash(String stocat) {
+        return !esteHash(stocat) || !stocat.startsWith(PREFIX + "$" + ITERATII + "$");
+    }
+
+    // amprenta rapida pentru sesiuni: evita PBKDF2 la autentificarile repetate
+    static byte[] amprenta(String parola, String stocat) {
+        try {
+            MessageDigest sha = MessageDigest.getInstance("SHA-256");
+            sha.update(stocat.getBytes(StandardCharsets.UTF_8));
+            return sha.digest(parola.getBytes(StandardCharsets.UTF_8));
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("SHA-256 indisponibil", e);
+        }
+    }
+
+    private static final class HashStocat {
+        private final int iteratii;
+        private final byte[] sare;
+        private final byte[] valoare;
+
+        private HashStocat(int iteratii, byte[] sare, byte[] valoare) {
+            this.iteratii = iteratii;
+            this.sare = sare;
+            this.valoare = valoare;
+        }
+    }
+
+    // null daca valoarea nu respecta formatul pbkdf2$<iteratii>$<sare>$<hash>
+    private static HashStocat parseaza(String stocat) {
+        String[] parti = stocat.split("\\$", -1);
+        if (parti.length != 4) {
+            return null;
+        }
+        try {
+            int iteratii = Integer.parseInt(parti[1]);
+            byte[] sare = Base64.getDecoder().decode(parti[2]);
+            byte[] valoare = Base64.getDecoder().decode(parti[3]);
+            if (iteratii <= 0 || sare.length == 0 || valoare.length * 8 != BITI_HASH) {
+                return null;
+            }
+            return new HashStocat(iteratii, sare, valoare);
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    private static byte[] pbkdf2(String parola, byte[] sare, int iteratii) {
+        KeySpec spec = new PBEKeySpec(parola.toCharArray(), sare, iteratii, BITI_HASH);
+        try {
+            return SecretKeyFactory.getInstance(ALGORITM).generateSecret(spec).getEncoded();
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException(ALGORITM + " indisponibil", e);
+        }
+    }
+
+    private static String format(int iteratii, byte[] sare, byte[] hash) {
+        Base64.Encoder b64 = Base64.getEncoder().withoutPadding();
+        return PREFIX + "$" + iteratii + "$" + b64.encodeToString(sare) + "$" + b64.encodeToString(hash);
+    }
+}
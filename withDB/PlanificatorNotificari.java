@@ -0,0 +1,117 @@
+package withDB;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+
+// coada de termene (ordonata dupa data) pentru imprumuturile active: fiecare imprumut
+// inregistreaza momentul reminder-ului (cu 9 zile inainte de termen) si momentul
+// expirarii (a doua zi dupa termen). Notificarile se construiesc o singura data, cand
+// trece momentul lor, iar o verificare in care nu a trecut niciun termen costa O(1).
+public class PlanificatorNotificari {
+    private static final int ZILE_REMINDER = 10;
+
+    private enum Tip { REMINDER, EXPIRAT }
+
+    private static final class Eveniment implements Comparable<Eveniment> {
+        private final LocalDate data;
+        private final Tip tip;
+        private final Imprumut imprumut;
+
+        private Eveniment(LocalDate data, Tip tip, Imprumut imprumut) {
+            this.data = data;
+            this.tip = tip;
+            this.imprumut = imprumut;
+        }
+
+        @Override
+        public int compareTo(Eveniment alt) {
+            return data.compareTo(alt.data);
+        }
+    }
+
+    private final PriorityQueue<Eveniment> coada = new PriorityQueue<>();
+    // notificarile pentru administrator, in ordinea expirarii
+    private final Map<Imprumut, String> expirate = new LinkedHashMap<>();
+    // id cititor -> (imprumut -> notificarea curenta: reminder sau expirat)
+    private final Map<Integer, Map<Imprumut, String>> pentruCititor = new HashMap<>();
+    private LocalDate urmatorulTermen = LocalDate.MAX;
+
+    public synchronized void inregistreaza(Imprumut imprumut) {
+        LocalDate termen = imprumut.getDataReturnare();
+        programeaza(new Eveniment(termen.minusDays(ZILE_REMINDER - 1), Tip.REMINDER, imprumut));
+        programeaza(new Eveniment(termen.plusDays(1), Tip.EXPIRAT, imprumut));
+    }
+
+    // la returnare; evenimentele ramase in coada sunt ignorate cand ajung la rand
+    public synchronized void anuleaza(Imprumut imprumut) {
+        expirate.remove(imprumut);
+        Map<Imprumut, String> notificari = pentruCititor.get(imprumut.getCititor().getId());
+        if (notificari != null) {
+            notificari.remove(imprumut);
+            if (notificari.isEmpty()) {
+                pentruCititor.remove(imprumut.getCititor().getId());
+            }
+        }
+    }
+
+    public synchronized List<String> getNotificariExpirate(LocalDate azi) {
+        avanseaza(azi);
+        return new ArrayList<>(expirate.values());
+    }
+
+    public synchronized List<String> getNotificariCititor(int idCititor, LocalDate azi) {
+        avanseaza(azi);
+        Map<Imprumut, String> notificari = pentruCititor.get(idCititor);
+        return notificari == null ? new ArrayList<>() : new ArrayList<>(notificari.values());
+    }
+
+    private void programeaza(Eveniment eveniment) {
+        coada.add(eveniment);
+        if (eveniment.data.isBefore(urmatorulTermen)) {
+            urmatorulTermen = eveniment.data;
+        }
+    }
+
+    // declanseaza evenimentele ajunse la termen
+    private void avanseaza(LocalDate azi) {
+        if (azi.isBefore(urmatorulTermen)) {
+            return;
+        }
+        while (!coada.isEmpty() && !coada.peek().data.isAfter(azi)) {
+            declanseaza(coada.poll());
+        }
+        urmatorulTermen = coada.isEmpty() ? LocalDate.MAX : coada.peek().data;
+    }
+
+    private void declanseaza(Eveniment eveniment) {
+        Imprumut imprumut = eveniment.imprumut;
+        if (!imprumut.esteActiv()) {
+            return;
+        }
+        Map<Imprumut, String> notificari = pentruCititor.computeIfAbsent(imprumut.getCititor().getId(),
+            k -> new LinkedHashMap<>());
+        if (eveniment.tip == Tip.REMINDER) {
+            // un imprumut deja expirat nu mai primeste reminder
+            notificari.putIfAbsent(imprumut, String.format(
+                "Reminder: Cartea '%s' trebuie returnata pana la %s",
+                imprumut.getCarteImprumutata().getNume(),
+                imprumut.getDataReturnare()));
+            return;
+        }
+        notificari.put(imprumut, String.format(
+            "ATENTIE: Cartea '%s' trebuie returnata urgent! Data limita a fost: %s",
+            imprumut.getCarteImprumutata().getNume(),
+            imprumut.getDataReturnare()));
+        expirate.put(imprumut, String.format(
+            "Notificare pentru %s %s: Cartea '%s' trebuie returnata! Data limita a fost: %s",
+            imprumut.getCititor().getPrenume(),
+            imprumut.getCititor().getNume(),
+            imprumut.getCarteImprumutata().getNume(),
+            imprumut.getDataReturnare()));
+    }
+}
@@ -0,0 +1,78 @@
+package withDB;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+// imprumuturile active indexate dupa carte, dupa cititor si dupa termenul de returnare;
+// tabela imprumuturi ramane sursa de adevar, registrul doar evita interogarile repetate
+public class RegistruImprumuturi {
+    // o carte are cel mult un imprumut activ
+    private final Map<Integer, Imprumut> dupaCarte = new ConcurrentHashMap<>();
+    private final Map<Integer, Map<Integer, Imprumut>> dupaCititor = new ConcurrentHashMap<>();
+    private final NavigableMap<LocalDate, Map<Integer, Imprumut>> dupaTermen = new ConcurrentSkipListMap<>();
+
+    public RegistruImprumuturi(Collection<Imprumut> active) {
+        active.forEach(this::adauga);
+    }
+
+    public void adauga(Imprumut imprumut) {
+        int idCarte = imprumut.getCarteImprumutata().getId();
+        dupaCarte.put(idCarte, imprumut);
+        dupaCititor.computeIfAbsent(imprumut.getCititor().getId(), k -> new ConcurrentHashMap<>())
+            .put(idCarte, imprumut);
+        dupaTermen.computeIfAbsent(imprumut.getDataReturnare(), k -> new ConcurrentHashMap<>())
+            .put(idCarte, imprumut);
+    }
+
+    public Imprumut get(int idCititor, int idCarte) {
+        Imprumut imprumut = dupaCarte.get(idCarte);
+        return imprumut != null && imprumut.getCititor().getId() == idCititor ? imprumut : null;
+    }
+
+    public Imprumut getPentruCarte(int idCarte) {
+        return dupaCarte.get(idCarte);
+    }
+
+    // scoate imprumutul activ al cartii la cititorul dat; null daca nu exista
+    public Imprumut elimina(int idCititor, int idCarte) {
+        Imprumut imprumut = get(idCititor, idCarte);
+        if (imprumut == null || !dupaCarte.remove(idCarte, imprumut)) {
+            return null;
+        }
+        dupaCititor.computeIfPresent(idCititor, (k, carti) -> {
+            carti.remove(idCarte);
+            return carti.isEmpty() ? null : carti;
+        });
+        dupaTermen.computeIfPresent(imprumut.getDataReturnare(), (k, carti) -> {
+            carti.remove(idCarte);
+            return carti.isEmpty() ? null : carti;
+        });
+        return imprumut;
+    }
+
+    public List<Imprumut> getPentruCititor(int idCititor) {
+        Map<Integer, Imprumut> carti = dupaCititor.get(idCititor);
+        return carti == null ? new ArrayList<>() : new ArrayList<>(carti.values());
+    }
+
+    // imprumuturile active cu termenul strict inainte de data, in ordinea termenului
+    public List<Imprumut> getCuTermenInainte(LocalDate data) {
+        List<Imprumut> rezultat = new ArrayList<>();
+        dupaTermen.headMap(data, false).values().forEach(carti -> rezultat.addAll(carti.values()));
+        return rezultat;
+    }
+
+    public List<Imprumut> getToate() {
+        return new ArrayList<>(dupaCarte.values());
+    }
+
+    public int size() {
+        return dupaCarte.size();
+    }
+}
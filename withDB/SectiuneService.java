@@ -1,27 +1,43 @@
 package withDB;
 
-import java.sql.Connection;
-import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
-import java.sql.Statement;
 
 public class SectiuneService {
     private static SectiuneService instance;
     private final CRUDService<Sectiune> crudService;
-    
+    private static final int CACHE_SIZE = Integer.getInteger("biblioteca.cache.size", 1000);
+
+    // sectiunile se schimba rar, asa ca lookup-urile trec printr-un cache invalidat la scriere
+    private final LruCache<Integer, Sectiune> cacheDupaId = new LruCache<>(CACHE_SIZE);
+    private final LruCache<String, Sectiune> cacheDupaNume = new LruCache<>(CACHE_SIZE);
+
+    private final CRUDService.ResultSetMapper<Sectiune> sectiuneMapper = new CRUDService.ResultSetMapper<Sectiune>() {
+        @Override
+        public Sectiune map(ResultSet rs) throws SQLException {
+            Sectiune sectiune = new Sectiune(
+                rs.getString("nume_sectiune"),
+                rs.getString("locatie")
+            );
+            sectiune.setId(rs.getInt("id"));
+            return sectiune;
+        }
+    };
+
     private SectiuneService() {
         crudService = CRUDService.getInstance();
     }
-    
+
     public static synchronized SectiuneService getInstance() {
         if (instance == null) {
             instance = new SectiuneService();
         }
         return instance;
     }
-    
+
     // creare tabel
     public void createTable() {
         String query = "CREATE TABLE IF NOT EXISTS sectiuni (" +
@@ -30,94 +46,112 @@ public class SectiuneService {
                        "locatie VARCHAR(50) NOT NULL)";
         crudService.executeUpdate(query);
     }
-    
+
     // adauga secțiune
     public void adaugaSectiune(Sectiune sectiune) {
-        String query = String.format("INSERT INTO sectiuni (nume_sectiune, locatie) " +
-                                   "VALUES ('%s', '%s')",
-                                   sectiune.getNumeSectiune(), sectiune.getLocatie());
-        crudService.executeUpdate(query);
+        String query = "INSERT INTO sectiuni (nume_sectiune, locatie) VALUES (?, ?)";
+        int id = crudService.executeInsert(query, sectiune.getNumeSectiune(), sectiune.getLocatie());
+        if (id > 0) {
+            sectiune.setId(id);
+            StatisticiService.getInstance().invalideaza();
+        }
     }
-    
+
+    // adaugare sectiuni in lot; intoarce id-urile in ordinea colectiei
+    public int[] adaugaSectiuni(Collection<Sectiune> sectiuni) {
+        List<Object[]> randuri = new ArrayList<>(sectiuni.size());
+        for (Sectiune sectiune : sectiuni) {
+            randuri.add(new Object[] { sectiune.getNumeSectiune(), sectiune.getLocatie() });
+        }
+        int[] ids = crudService.executeBatch("INSERT INTO sectiuni (nume_sectiune, locatie) VALUES (?, ?)", randuri);
+        int i = 0;
+        for (Sectiune sectiune : sectiuni) {
+            if (ids[i] > 0) {
+                sectiune.setId(ids[i]);
+            }
+            i++;
+        }
+        StatisticiService.getInstance().invalideaza();
+        return ids;
+    }
+
     // obt toate sectiunile
     public List<Sectiune> getToateSectiunile() {
-        String query = "SELECT * FROM sectiuni";
-        return crudService.executeQuery(query, new CRUDService.ResultSetMapper<Sectiune>() {
-            @Override
-            public Sectiune map(ResultSet rs) throws SQLException {
-                Sectiune sectiune = new Sectiune(
-                    rs.getString("nume_sectiune"),
-                    rs.getString("locatie")
-                );
-                sectiune.setId(rs.getInt("id"));
-                return sectiune;
-            }
-        });
+        return crudService.executeQuery("SELECT * FROM sectiuni", sectiuneMapper);
+    }
+
+    // pagina de sectiuni cu id > dupaId; prima pagina se cere cu dupaId = 0
+    public Pagina<Sectiune> getSectiuniPagina(int dupaId, int limita) {
+        return crudService.executePage("SELECT * FROM sectiuni", "id", sectiuneMapper, Sectiune::getId, dupaId, limita);
     }
-    
+
     // update secțiune
     public void actualizeazaSectiune(Sectiune sectiune) {
-        String query = String.format("UPDATE sectiuni SET nume_sectiune='%s', locatie='%s' WHERE id=%d",
-                                   sectiune.getNumeSectiune(), sectiune.getLocatie(), sectiune.getId());
-        crudService.executeUpdate(query);
+        String query = "UPDATE sectiuni SET nume_sectiune=?, locatie=? WHERE id=?";
+        crudService.executeUpdate(query, sectiune.getNumeSectiune(), sectiune.getLocatie(), sectiune.getId());
+        invalideaza(sectiune.getId());
+        StatisticiService.getInstance().invalideaza();
     }
-    
+
     // sterge secțiune
     public void stergeSectiune(int idSectiune) {
-        String query = String.format("DELETE FROM sectiuni WHERE id=%d", idSectiune);
-        crudService.executeUpdate(query);
+        crudService.executeUpdate("DELETE FROM sectiuni WHERE id=?", idSectiune);
+        invalideaza(idSectiune);
+        StatisticiService.getInstance().invalideaza();
     }
-    
+
     public int countSectiuni() {
-    String sql = "SELECT COUNT(*) FROM sectiuni";
-        try (Connection conn = DatabaseConnection.getConnection();
-            Statement stmt = conn.createStatement();
-            ResultSet rs = stmt.executeQuery(sql)) {
-            if (rs.next()) {
-                return rs.getInt(1);
-            }
-        } catch (SQLException e) {
-            e.printStackTrace();
-        }
-        return 0;
+        return crudService.executeCount("SELECT COUNT(*) FROM sectiuni");
     }
 
+    // cache-ul tine instantele lui; apelantii primesc copii pe care le pot modifica
     public Sectiune getSectiuneByNume(String nume) {
         String sql = "SELECT * FROM sectiuni WHERE nume_sectiune = ?";
-        try (Connection conn = DatabaseConnection.getConnection();
-            PreparedStatement pstmt = conn.prepareStatement(sql)) {
-            pstmt.setString(1, nume);
-            try (ResultSet rs = pstmt.executeQuery()) {
-                if (rs.next()) {
-                    Sectiune sectiune = new Sectiune(
-                        rs.getString("nume_sectiune"),
-                        rs.getString("locatie")
-                    );
-                    sectiune.setId(rs.getInt("id"));
-                    return sectiune;
-                }
+        Sectiune sectiune = cacheDupaNume.get(nume);
+        if (sectiune == null) {
+            long versiuneId = cacheDupaId.getVersion();
+            long versiuneNume = cacheDupaNume.getVersion();
+            List<Sectiune> sectiuni = crudService.executeQuery(sql, sectiuneMapper, nume);
+            sectiune = sectiuni.isEmpty() ? null : sectiuni.get(0);
+            if (sectiune != null) {
+                cacheDupaNume.putIfVersion(nume, sectiune, versiuneNume);
+                cacheDupaId.putIfVersion(sectiune.getId(), sectiune, versiuneId);
             }
-        } catch (SQLException e) {
-            e.printStackTrace();
         }
-        return null;
+        return copie(sectiune);
     }
-    
+
     // sectiune după ID
     public Sectiune getSectiuneById(int id) {
-        String query = "SELECT * FROM sectiuni WHERE id=" + id;
-        List<Sectiune> sectiuni = crudService.executeQuery(query, new CRUDService.ResultSetMapper<Sectiune>() {
-            @Override
-            public Sectiune map(ResultSet rs) throws SQLException {
-                Sectiune sectiune = new Sectiune(
-                    rs.getString("nume_sectiune"),
-                    rs.getString("locatie")
-                );
-                sectiune.setId(rs.getInt("id"));
-                return sectiune;
+        Sectiune sectiune = cacheDupaId.get(id);
+        if (sectiune == null) {
+            long versiuneId = cacheDupaId.getVersion();
+            long versiuneNume = cacheDupaNume.getVersion();
+            List<Sectiune> sectiuni = crudService.executeQuery("SELECT * FROM sectiuni WHERE id=?", sectiuneMapper, id);
+            sectiune = sectiuni.isEmpty() ? null : sectiuni.get(0);
+            if (sectiune != null) {
+                cacheDupaId.putIfVersion(id, sectiune, versiuneId);
+                cacheDupaNume.putIfVersion(sectiune.getNumeSectiune(), sectiune, versiuneNume);
             }
-        });
-        
-        return sectiuni.isEmpty() ? null : sectiuni.get(0);
+        }
+        return copie(sectiune);
+    }
+
+    private static Sectiune copie(Sectiune sectiune) {
+        if (sectiune == null) {
+            return null;
+        }
+        Sectiune copie = new Sectiune(sectiune.getNumeSectiune(), sectiune.getLocatie());
+        copie.setId(sectiune.getId());
+        return copie;
+    }
+
+    public String getStatisticiCache() {
+        return "sectiuni dupa id: " + cacheDupaId + "; sectiuni dupa nume: " + cacheDupaNume;
+    }
+
+    private void invalideaza(int idSectiune) {
+        cacheDupaId.invalidate(idSectiune);
+        cacheDupaNume.invalidateIf(s -> s.getId() == idSectiune);
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,426 @@
+package withDB;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// modul fara consola: aceleasi operatii ca meniul, expuse ca endpoint-uri JSON
+//   GET  /carti?text=|nume=|autor=|an=|disponibile=true  cautare in catalog (text: full-text, toleranta la greseli)
+//   GET  /carti?anMin=&anMax=&sectiune=&gen=[&disponibile=true]  filtre combinate, oricare dintre ele
+//   GET  /sugestii?prefix=[&k=10]                     titluri si autori care incep cu prefixul, dupa popularitate
+//   POST /autentificare  cititor=&parola=            token de sesiune (cititor = numarul de legitimatie)
+//   POST /imprumuturi?carte=[&zile=14]               imprumut pentru cititorul autentificat
+//   POST /returnari?carte=                           returnare pentru cititorul autentificat
+//   GET  /notificari                                 notificarile cititorului autentificat
+//   GET  /statistici                                 contoare si starea pool-ului
+// parametrii se pot trimite in query string sau ca application/x-www-form-urlencoded (parola doar in corp);
+// rutele cititorului cer antetul "Authorization: Bearer <token>" primit de la /autentificare
+public class ServerHttp {
+    private static final int PORT = Integer.getInteger("biblioteca.http.port", 8080);
+    // implicit doar local; alta interfata (de ex. 0.0.0.0) trebuie ceruta explicit
+    private static final String HOST = System.getProperty("biblioteca.http.host");
+    private static final int FIRE = Integer.getInteger("biblioteca.http.threads",
+        Math.max(16, Runtime.getRuntime().availableProcessors() * 4));
+    private static final int ZILE_IMPRUMUT = 14;
+    private static final int NUMAR_SUGESTII = 10;
+
+    private final Biblioteca biblioteca;
+    private final CarteService carteService = CarteService.getInstance();
+    private final CititorService cititorService = CititorService.getInstance();
+    private final HttpServer server;
+    private final ExecutorService executor;
+
+    private interface Ruta {
+        String trateaza(Map<String, String> parametri);
+    }
+
+    // ruta care lucreaza in numele cititorului din tokenul de sesiune
+    private interface RutaCititor {
+        String trateaza(Cititor cititor, Map<String, String> parametri);
+    }
+
+    private interface RutaCerere {
+        String trateaza(HttpExchange exchange, Map<String, String> parametri);
+    }
+
+    // token lipsa, necunoscut sau expirat
+    private static final class NeautentificatException extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+
+        private NeautentificatException(String mesaj) {
+            super(mesaj);
+        }
+    }
+
+    public ServerHttp(Biblioteca biblioteca) throws IOException {
+        this(biblioteca, PORT);
+    }
+
+    public ServerHttp(Biblioteca biblioteca, int port) throws IOException {
+        this(biblioteca, HOST == null ? InetAddress.getLoopbackAddress() : InetAddress.getByName(HOST), port);
+    }
+
+    public ServerHttp(Biblioteca biblioteca, InetAddress adresa, int port) throws IOException {
+        this.biblioteca = biblioteca;
+        this.server = HttpServer.create(new InetSocketAddress(adresa, port), 0);
+        this.executor = creeazaExecutor();
+        server.setExecutor(executor);
+        inregistreaza("/carti", "GET", this::cautaCarti);
+        inregistreaza("/sugestii", "GET", this::sugestii);
+        inregistreaza("/autentificare", "POST", this::autentifica);
+        inregistreazaPentruCititor("/imprumuturi", "POST", this::imprumuta);
+        inregistreazaPentruCititor("/returnari", "POST", this::returneaza);
+        inregistreazaPentruCititor("/notificari", "GET", this::notificari);
+        inregistreaza("/statistici", "GET", this::statistici);
+    }
+
+    public void start() {
+        server.start();
+        System.out.println("Server HTTP pornit pe " + server.getAddress().getAddress().getHostAddress()
+            + ":" + server.getAddress().getPort());
+    }
+
+    public void stop() {
+        server.stop(1);
+        executor.shutdown();
+        try {
+            executor.awaitTermination(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    public int getPort() {
+        return server.getAddress().getPort();
+    }
+
+    // fir virtual per cerere cand JVM-ul le are (Java 21+), altfel un pool fix de fire;
+    // concurenta reala spre baza de date este limitata oricum de pool-ul de conexiuni
+    private static ExecutorService creeazaExecutor() {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException e) {
+            AtomicInteger numar = new AtomicInteger();
+            return Executors.newFixedThreadPool(FIRE, r -> {
+                Thread fir = new Thread(r, "http-" + numar.incrementAndGet());
+                fir.setDaemon(true);
+                return fir;
+            });
+        }
+    }
+
+    private void inregistreaza(String cale, String metoda, Ruta ruta) {
+        inregistreaza(cale, metoda, (exchange, p) -> ruta.trateaza(p));
+    }
+
+    private void inregistreazaPentruCititor(String cale, String metoda, RutaCititor ruta) {
+        inregistreaza(cale, metoda, (exchange, p) -> ruta.trateaza(cititorAutentificat(exchange), p));
+    }
+
+    private void inregistreaza(String cale, String metoda, RutaCerere ruta) {
+        server.createContext(cale, exchange -> {
+            try {
+                if (!metoda.equals(exchange.getRequestMethod())) {
+                    raspunde(exchange, 405, eroare("Metoda nepermisa, se asteapta " + metoda));
+                    return;
+                }
+                raspunde(exchange, 200, ruta.trateaza(exchange, parametri(exchange)));
+            } catch (NeautentificatException e) {
+                exchange.getResponseHeaders().set("WWW-Authenticate", "Bearer");
+                raspunde(exchange, 401, eroare(e.getMessage()));
+            } catch (NoSuchElementException e) {
+                raspunde(exchange, 404, eroare(e.getMessage()));
+            } catch (CititorNeeligibilException e) {
+                raspunde(exchange, 403, eroare(e.getMessage()));
+            } catch (CarteIndisponibilaException e) {
+                // singurul conflict: cartea a fost luata de altcineva
+                raspunde(exchange, 409, eroare(e.getMessage()));
+            } catch (IllegalArgumentException | DateTimeParseException e) {
+                raspunde(exchange, 400, eroare(e.getMessage()));
+            } catch (RuntimeException e) {
+                System.err.println("Eroare server " + cale + ": " + e);
+                raspunde(exchange, 500, eroare("Eroare interna"));
+            } finally {
+                exchange.close();
+            }
+        });
+    }
+
+    private String cautaCarti(Map<String, String> p) {
+        List<Carte> carti;
+        if (p.containsKey("text")) {
+            carti = biblioteca.cautaCarti(p.get("text"));
+            if (carti.isEmpty()) {
+                carti = biblioteca.cautaCartiAproximativ(p.get("text"));
+            }
+        } else if (p.containsKey("anMin") || p.containsKey("anMax") || p.containsKey("sectiune") || p.containsKey("gen")) {
+            carti = biblioteca.cautaCarti(criterii(p));
+        } else if (p.containsKey("nume")) {
+            carti = biblioteca.cautaCartiDupaNume(p.get("nume"));
+        } else if (p.containsKey("autor")) {
+            carti = biblioteca.cautaCartiDupaAutor(p.get("autor"));
+        } else if (p.containsKey("an")) {
+            carti = biblioteca.cautaCartiDupaAn(intParam(p, "an"));
+        } else if ("true".equals(p.get("disponibile"))) {
+            carti = biblioteca.getCartiDisponibile();
+        } else {
+            throw new IllegalArgumentException("Se asteapta unul dintre parametrii text, nume, autor, an, disponibile");
+        }
+        StringBuilder json = new StringBuilder("[");
+        for (Carte carte : carti) {
+            if (json.length() > 1) {
+                json.append(',');
+            }
+            carteJson(json, carte);
+        }
+        return json.append(']').toString();
+    }
+
+    private CriteriiCautare criterii(Map<String, String> p) {
+        CriteriiCautare.Builder criterii = new CriteriiCautare.Builder()
+            .setAnIntre(p.containsKey("anMin") ? intParam(p, "anMin") : Integer.MIN_VALUE,
+                        p.containsKey("anMax") ? intParam(p, "anMax") : Integer.MAX_VALUE)
+            .setDoarDisponibile("true".equals(p.get("disponibile")));
+        if (p.containsKey("sectiune")) {
+            Sectiune sectiune = biblioteca.getSectiuneDupaNume(p.get("sectiune"));
+            if (sectiune == null) {
+                throw new NoSuchElementException("Sectiunea nu exista");
+            }
+            criterii.setSectiune(sectiune);
+        }
+        if (p.containsKey("gen")) {
+            criterii.setGenLiterar(p.get("gen"));
+        }
+        return criterii.build();
+    }
+
+    private String sugestii(Map<String, String> p) {
+        int k = p.containsKey("k") ? intParam(p, "k") : NUMAR_SUGESTII;
+        if (k <= 0) {
+            throw new IllegalArgumentException("Parametrul k trebuie sa fie pozitiv");
+        }
+        StringBuilder json = new StringBuilder("[");
+        for (Autocomplete.Sugestie sugestie : biblioteca.getSugestii(p.getOrDefault("prefix", ""), k)) {
+            if (json.length() > 1) {
+                json.append(',');
+            }
+            json.append("{\"text\":");
+            text(json, sugestie.getText());
+            json.append(",\"tip\":\"").append(sugestie.esteAutor() ? "autor" : "carte")
+                .append("\",\"id\":").append(sugestie.getId())
+                .append(",\"imprumuturi\":").append(sugestie.getScor()).append('}');
+        }
+        return json.append(']').toString();
+    }
+
+    // parola se primeste doar in corpul cererii: un URL ajunge in jurnale de acces si in istoric
+    private String autentifica(HttpExchange exchange, Map<String, String> p) {
+        Map<String, String> query = new HashMap<>();
+        adaugaParametri(query, exchange.getRequestURI().getRawQuery());
+        if (query.containsKey("parola")) {
+            throw new IllegalArgumentException("Parola se trimite in corpul cererii, nu in URL");
+        }
+        int idCititor = intParam(p, "cititor");
+        String parola = p.get("parola");
+        if (parola == null) {
+            throw new IllegalArgumentException("Lipseste parametrul parola");
+        }
+        String token = cititorService.autentificaCuToken(idCititor, parola);
+        if (token == null) {
+            throw new NeautentificatException("Numar de legitimatie sau parola gresita");
+        }
+        return "{\"token\":\"" + token + "\",\"cititor\":" + idCititor
+            + ",\"expiraIn\":" + cititorService.getTtlSesiuneMs() / 1000 + "}";
+    }
+
+    private String imprumuta(Cititor cititor, Map<String, String> p) {
+        Carte carte = carte(p);
+        int zile = p.containsKey("zile") ? intParam(p, "zile") : ZILE_IMPRUMUT;
+        if (zile <= 0) {
+            throw new IllegalArgumentException("Numarul de zile trebuie sa fie pozitiv");
+        }
+        LocalDate dataReturnare = p.containsKey("dataReturnare")
+            ? LocalDate.parse(p.get("dataReturnare"))
+            : LocalDate.now().plusDays(zile);
+        biblioteca.imprumutaCarte(cititor, carte, dataReturnare);
+        Audit.getInstance().logAction("imprumuta_carte");
+        return "{\"carte\":" + carte.getId() + ",\"cititor\":" + cititor.getIdCititor()
+            + ",\"dataReturnare\":\"" + dataReturnare + "\"}";
+    }
+
+    private String returneaza(Cititor cititor, Map<String, String> p) {
+        Carte carte = carte(p);
+        biblioteca.returneazaCarte(cititor, carte);
+        Audit.getInstance().logAction("returneaza_carte");
+        return "{\"carte\":" + carte.getId() + ",\"cititor\":" + cititor.getIdCititor() + "}";
+    }
+
+    private String notificari(Cititor cititor, Map<String, String> p) {
+        List<String> mesaje = biblioteca.getNotificariPentruCititor(cititor);
+        StringBuilder json = new StringBuilder("[");
+        for (String mesaj : mesaje) {
+            if (json.length() > 1) {
+                json.append(',');
+            }
+            text(json, mesaj);
+        }
+        return json.append(']').toString();
+    }
+
+    private String statistici(Map<String, String> p) {
+        Statistici statistici = biblioteca.getStatistici();
+        DatabaseConnection.PoolStats pool = DatabaseConnection.getInstance().getStats();
+        StringBuilder json = new StringBuilder();
+        json.append("{\"carti\":").append(statistici.getTotalCarti())
+            .append(",\"disponibile\":").append(statistici.getCartiDisponibile())
+            .append(",\"imprumutate\":").append(statistici.getCartiImprumutate())
+            .append(",\"cititori\":").append(statistici.getTotalCititori())
+            .append(",\"imprumuturiActive\":").append(statistici.getImprumuturiActive())
+            .append(",\"perSectiune\":");
+        contoare(json, statistici.getPerSectiune());
+        json.append(",\"perGen\":");
+        contoare(json, statistici.getPerGen());
+        json.append(",\"perAutor\":");
+        contoare(json, statistici.getPerAutor());
+        json.append(",\"perDeceniu\":");
+        contoare(json, statistici.getPerDeceniu());
+        return json.append(",\"pool\":{\"total\":" + pool.getTotal() + ",\"ocupate\":" + pool.getBorrowed()
+            + ",\"libere\":" + pool.getIdle() + ",\"timeouts\":" + pool.getTimeouts() + "}}").toString();
+    }
+
+    private static void contoare(StringBuilder json, Map<?, Integer> valori) {
+        json.append('{');
+        for (Map.Entry<?, Integer> intrare : valori.entrySet()) {
+            if (json.charAt(json.length() - 1) != '{') {
+                json.append(',');
+            }
+            text(json, String.valueOf(intrare.getKey()));
+            json.append(':').append(intrare.getValue());
+        }
+        json.append('}');
+    }
+
+    // cititorul din tokenul "Authorization: Bearer ...", recitit din baza pentru fiecare cerere
+    private Cititor cititorAutentificat(HttpExchange exchange) {
+        String antet = exchange.getRequestHeaders().getFirst("Authorization");
+        if (antet == null || !antet.regionMatches(true, 0, "Bearer ", 0, 7)) {
+            throw new NeautentificatException("Este necesara autentificarea");
+        }
+        Integer idCititor = cititorService.getIdCititorDupaToken(antet.substring(7).trim());
+        Cititor cititor = idCititor == null ? null : cititorService.getCititorDupaIdCititor(idCititor);
+        if (cititor == null) {
+            throw new NeautentificatException("Sesiune invalida sau expirata");
+        }
+        return cititor;
+    }
+
+    private Carte carte(Map<String, String> p) {
+        Carte carte = carteService.getCarteById(intParam(p, "carte"));
+        if (carte == null) {
+            throw new NoSuchElementException("Cartea nu exista");
+        }
+        return carte;
+    }
+
+    private static int intParam(Map<String, String> p, String nume) {
+        String valoare = p.get(nume);
+        if (valoare == null) {
+            throw new IllegalArgumentException("Lipseste parametrul " + nume);
+        }
+        try {
+            return Integer.parseInt(valoare.trim());
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Parametrul " + nume + " trebuie sa fie numar");
+        }
+    }
+
+    private static Map<String, String> parametri(HttpExchange exchange) throws IOException {
+        Map<String, String> parametri = new HashMap<>();
+        adaugaParametri(parametri, exchange.getRequestURI().getRawQuery());
+        String tip = exchange.getRequestHeaders().getFirst("Content-Type");
+        if (tip != null && tip.startsWith("application/x-www-form-urlencoded")) {
+            try (InputStream corp = exchange.getRequestBody()) {
+                adaugaParametri(parametri, new String(corp.readAllBytes(), StandardCharsets.UTF_8));
+            }
+        }
+        return parametri;
+    }
+
+    private static void adaugaParametri(Map<String, String> parametri, String sir) {
+        if (sir == null || sir.isEmpty()) {
+            return;
+        }
+        for (String pereche : sir.split("&")) {
+            int egal = pereche.indexOf('=');
+            String cheie = egal < 0 ? pereche : pereche.substring(0, egal);
+            String valoare = egal < 0 ? "" : pereche.substring(egal + 1);
+            parametri.put(URLDecoder.decode(cheie, StandardCharsets.UTF_8),
+                          URLDecoder.decode(valoare, StandardCharsets.UTF_8));
+        }
+    }
+
+    private static void raspunde(HttpExchange exchange, int status, String json) throws IOException {
+        byte[] corp = json.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+        exchange.sendResponseHeaders(status, corp.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(corp);
+        }
+    }
+
+    private static String eroare(String mesaj) {
+        StringBuilder json = new StringBuilder("{\"eroare\":");
+        text(json, mesaj == null ? "" : mesaj);
+        return json.append('}').toString();
+    }
+
+    private static void carteJson(StringBuilder json, Carte carte) {
+        json.append("{\"id\":").append(carte.getId()).append(",\"nume\":");
+        text(json, carte.getNume());
+        json.append(",\"autor\":");
+        text(json, carte.getAutor().getPrenume() + " " + carte.getAutor().getNume());
+        json.append(",\"sectiune\":");
+        text(json, carte.getSectiune().getNumeSectiune());
+        json.append(",\"an\":").append(carte.getAnPublicatie())
+            .append(",\"disponibila\":").append(carte.esteDisponibil()).append('}');
+    }
+
+    // sir JSON cu ghilimele, backslash si caracterele de control escapate
+    private static void text(StringBuilder json, String valoare) {
+        json.append('"');
+        for (int i = 0; i < valoare.length(); i++) {
+            char c = valoare.charAt(i);
+            switch (c) {
+                case '"': json.append("\\\""); break;
+                case '\\': json.append("\\\\"); break;
+                case '\n': json.append("\\n"); break;
+                case '\r': json.append("\\r"); break;
+                case '\t': json.append("\\t"); break;
+                default:
+                    if (c < 0x20) {
+                        json.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        json.append(c);
+                    }
+            }
+        }
+        json.append('"');
+    }
+}
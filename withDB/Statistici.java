@@ -0,0 +1,42 @@
+package withDB;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+
+// instantaneu al contoarelor bibliotecii, calculat de StatisticiService
+public class Statistici {
+    int totalCarti;
+    int cartiDisponibile;
+    int totalCititori;
+    int imprumuturiActive;
+    final Map<String, Integer> perSectiune = new LinkedHashMap<>();
+    final Map<String, Integer> perGen = new LinkedHashMap<>();
+    final Map<String, Integer> perAutor = new LinkedHashMap<>();
+    // cheia este primul an al deceniului (1880 = 1880-1889), in ordine cronologica
+    final Map<Integer, Integer> perDeceniu = new TreeMap<>();
+
+    Statistici() {}
+
+    Statistici(Statistici alta) {
+        totalCarti = alta.totalCarti;
+        cartiDisponibile = alta.cartiDisponibile;
+        totalCititori = alta.totalCititori;
+        imprumuturiActive = alta.imprumuturiActive;
+        perSectiune.putAll(alta.perSectiune);
+        perGen.putAll(alta.perGen);
+        perAutor.putAll(alta.perAutor);
+        perDeceniu.putAll(alta.perDeceniu);
+    }
+
+    public int getTotalCarti() { return totalCarti; }
+    public int getCartiDisponibile() { return cartiDisponibile; }
+    public int getCartiImprumutate() { return totalCarti - cartiDisponibile; }
+    public int getTotalCititori() { return totalCititori; }
+    public int getImprumuturiActive() { return imprumuturiActive; }
+    public Map<String, Integer> getPerSectiune() { return Collections.unmodifiableMap(perSectiune); }
+    public Map<String, Integer> getPerGen() { return Collections.unmodifiableMap(perGen); }
+    public Map<String, Integer> getPerAutor() { return Collections.unmodifiableMap(perAutor); }
+    public Map<Integer, Integer> getPerDeceniu() { return Collections.unmodifiableMap(perDeceniu); }
+}
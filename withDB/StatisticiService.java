@@ -0,0 +1,127 @@
+package withDB;
+
+// contoarele bibliotecii calculate in SQL, intr-o singura interogare; optional se pastreaza
+// un instantaneu in memorie actualizat la imprumut, returnare si adaugare de carte, iar
+// celelalte scrieri il invalideaza direct din serviciile care le fac (nu doar din Biblioteca)
+public class StatisticiService {
+    private static StatisticiService instance;
+    private static final boolean INSTANTANEU = Boolean.parseBoolean(
+        System.getProperty("biblioteca.statistici.instantaneu", "true"));
+
+    // fiecare rand: dimensiunea, cheia in cadrul ei si numarul de carti (sau de cititori / imprumuturi);
+    // "ordine" este deceniul ca numar, ca 990 sa vina inaintea lui 1880
+    private static final String STATISTICI =
+        "SELECT 'total' AS dimensiune, '' AS cheie, 0 AS ordine, COUNT(*) AS numar FROM carti " +
+        "UNION ALL SELECT 'disponibile', '', 0, COUNT(*) FROM carti WHERE este_disponibil = TRUE " +
+        "UNION ALL SELECT 'cititori', '', 0, COUNT(*) FROM cititori " +
+        "UNION ALL SELECT 'imprumuturi', '', 0, COUNT(*) FROM imprumuturi WHERE activ = TRUE " +
+        "UNION ALL SELECT 'sectiune', s.nume_sectiune, 0, COUNT(c.id) FROM sectiuni s " +
+        "LEFT JOIN carti c ON c.id_sectiune = s.id GROUP BY s.id, s.nume_sectiune " +
+        "UNION ALL SELECT 'gen', gen_literar, 0, COUNT(*) FROM carti WHERE gen_literar IS NOT NULL GROUP BY gen_literar " +
+        "UNION ALL SELECT 'autor', a.prenume || ' ' || a.nume, 0, COUNT(c.id) FROM autori a " +
+        "LEFT JOIN carti c ON c.id_autor = a.id GROUP BY a.id, a.prenume, a.nume " +
+        "UNION ALL SELECT 'deceniu', CAST(an_publicatie / 10 * 10 AS VARCHAR), an_publicatie / 10 * 10, COUNT(*) FROM carti " +
+        "GROUP BY an_publicatie / 10 " +
+        "ORDER BY 1, 3, 2";
+
+    private final CRUDService<Statistici> crudService;
+    private Statistici instantaneu;
+    // scrierile care vor actualiza instantaneul si nu s-au terminat inca; cat timp exista
+    // vreuna, o recalculare poate vedea deja scrierea confirmata si nu se pastreaza, altfel
+    // actualizarea de dupa commit ar numara-o a doua oara
+    private int scrieriInCurs;
+
+    private StatisticiService() {
+        crudService = CRUDService.getInstance();
+    }
+
+    public static synchronized StatisticiService getInstance() {
+        if (instance == null) {
+            instance = new StatisticiService();
+        }
+        return instance;
+    }
+
+    // citeste instantaneul daca exista, altfel interogheaza baza de date
+    public synchronized Statistici getStatistici() {
+        if (!INSTANTANEU) {
+            return calculeaza();
+        }
+        if (instantaneu == null) {
+            Statistici calculate = calculeaza();
+            if (scrieriInCurs > 0) {
+                return calculate;
+            }
+            instantaneu = calculate;
+        }
+        return new Statistici(instantaneu);
+    }
+
+    public Statistici calculeaza() {
+        Statistici statistici = new Statistici();
+        crudService.forEachRow(STATISTICI, (rs, identitati) -> {
+            String cheie = rs.getString("cheie");
+            int numar = rs.getInt("numar");
+            switch (rs.getString("dimensiune")) {
+                case "total": statistici.totalCarti = numar; break;
+                case "disponibile": statistici.cartiDisponibile = numar; break;
+                case "cititori": statistici.totalCititori = numar; break;
+                case "imprumuturi": statistici.imprumuturiActive = numar; break;
+                case "sectiune": statistici.perSectiune.merge(cheie, numar, Integer::sum); break;
+                case "gen": statistici.perGen.merge(cheie, numar, Integer::sum); break;
+                case "autor": statistici.perAutor.merge(cheie, numar, Integer::sum); break;
+                case "deceniu": statistici.perDeceniu.merge(Integer.parseInt(cheie), numar, Integer::sum); break;
+                default: break;
+            }
+        });
+        return statistici;
+    }
+
+    // se apeleaza inainte de o scriere care se incheie cu carteAdaugata, carteImprumutata,
+    // carteReturnata sau, daca nu reuseste, cu scriereAnulata
+    public synchronized void scriereInceputa() {
+        scrieriInCurs++;
+    }
+
+    public synchronized void scriereAnulata() {
+        scrieriInCurs--;
+    }
+
+    public synchronized void carteAdaugata(Carte carte) {
+        scrieriInCurs--;
+        if (instantaneu == null) {
+            return;
+        }
+        instantaneu.totalCarti++;
+        if (carte.esteDisponibil()) {
+            instantaneu.cartiDisponibile++;
+        }
+        instantaneu.perSectiune.merge(carte.getSectiune().getNumeSectiune(), 1, Integer::sum);
+        instantaneu.perAutor.merge(carte.getAutor().getPrenume() + " " + carte.getAutor().getNume(), 1, Integer::sum);
+        instantaneu.perDeceniu.merge(carte.getAnPublicatie() / 10 * 10, 1, Integer::sum);
+        if (carte instanceof Roman && ((Roman) carte).getGenLiterar() != null) {
+            instantaneu.perGen.merge(((Roman) carte).getGenLiterar(), 1, Integer::sum);
+        }
+    }
+
+    public synchronized void carteImprumutata() {
+        scrieriInCurs--;
+        if (instantaneu != null) {
+            instantaneu.cartiDisponibile--;
+            instantaneu.imprumuturiActive++;
+        }
+    }
+
+    public synchronized void carteReturnata() {
+        scrieriInCurs--;
+        if (instantaneu != null) {
+            instantaneu.cartiDisponibile++;
+            instantaneu.imprumuturiActive--;
+        }
+    }
+
+    // urmatoarea citire recalculeaza din baza de date
+    public synchronized void invalideaza() {
+        instantaneu = null;
+    }
+}
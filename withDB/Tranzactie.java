@@ -0,0 +1,76 @@
+package withDB;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+
+// unitate de lucru: toate instructiunile folosesc aceeasi conexiune si se confirma
+// printr-un singur commit; daca nu se ajunge la commit(), close() face rollback
+public class Tranzactie implements AutoCloseable {
+    private final Connection conn;
+    private boolean confirmata;
+    // actualizari ale structurilor din memorie care trebuie facute doar daca tranzactia reuseste
+    private final List<Runnable> dupaCommit = new ArrayList<>();
+
+    Tranzactie() throws SQLException {
+        conn = DatabaseConnection.getConnection();
+        try {
+            conn.setAutoCommit(false);
+        } catch (SQLException e) {
+            conn.close();
+            throw e;
+        }
+    }
+
+    public int update(String sql, Object... params) throws SQLException {
+        PreparedStatement stmt = DatabaseConnection.prepareCached(conn, sql, false);
+        CRUDService.bind(stmt, params);
+        return stmt.executeUpdate();
+    }
+
+    // INSERT care intoarce id-ul generat (sau -1 daca nu s-a generat niciunul)
+    public int insert(String sql, Object... params) throws SQLException {
+        PreparedStatement stmt = DatabaseConnection.prepareCached(conn, sql, true);
+        CRUDService.bind(stmt, params);
+        stmt.executeUpdate();
+        try (ResultSet rs = stmt.getGeneratedKeys()) {
+            return rs.next() ? rs.getInt(1) : -1;
+        }
+    }
+
+    public <T> List<T> query(String sql, CRUDService.ResultSetMapper<T> mapper, Object... params) throws SQLException {
+        PreparedStatement stmt = DatabaseConnection.prepareCached(conn, sql, false);
+        CRUDService.bind(stmt, params);
+        List<T> rezultat = new ArrayList<>();
+        try (ResultSet rs = stmt.executeQuery()) {
+            while (rs.next()) {
+                rezultat.add(mapper.map(rs));
+            }
+        }
+        return rezultat;
+    }
+
+    public void dupaCommit(Runnable actiune) {
+        dupaCommit.add(actiune);
+    }
+
+    public void commit() throws SQLException {
+        conn.commit();
+        confirmata = true;
+        dupaCommit.forEach(Runnable::run);
+    }
+
+    @Override
+    public void close() throws SQLException {
+        try {
+            if (!confirmata) {
+                conn.rollback();
+            }
+        } finally {
+            conn.close();
+        }
+    }
+}
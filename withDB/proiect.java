@@ -1,8 +1,11 @@
 package withDB;
+import java.io.IOException;
+import java.nio.file.Paths;
 import java.time.LocalDate;
 import java.util.*;
 import java.time.format.DateTimeParseException;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 import withDB.AutorService;
 import withDB.SectiuneService;
 import withDB.CarteService;
@@ -372,6 +375,15 @@ class Imprumut {
     private LocalDate dataImprumut;
     private LocalDate dataReturnare;
     private boolean activ;
+    private int id;
+
+    public void setId(int id) {
+        this.id = id;
+    }
+
+    public int getId() {
+        return id;
+    }
 
     public Imprumut(Cititor cititor, Carte carteImprumutata, LocalDate dataImprumut, LocalDate dataReturnare) {
         setCititor(cititor);
@@ -551,14 +563,24 @@ class Biblioteca {
     private final SectiuneService sectiuneService = SectiuneService.getInstance();
     private final CarteService carteService = CarteService.getInstance();
     private final CititorService cititorService = CititorService.getInstance();
-    
-    private List<Imprumut> istoricImprumuturi = new ArrayList<>();
-    private final List<Imprumut> imprumuturiActive = new ArrayList<>();
+    private final ImprumutService imprumutService = ImprumutService.getInstance();
+    private final StatisticiService statistici = StatisticiService.getInstance();
+    private final CRUDService<?> crudService = CRUDService.getInstance();
+    private final RegistruImprumuturi imprumuturiActive = new RegistruImprumuturi(imprumutService.getImprumuturiActive());
+    private final PlanificatorNotificari planificator = new PlanificatorNotificari();
+
+    public Biblioteca() {
+        imprumuturiActive.getToate().forEach(planificator::inregistreaza);
+    }
 
     public void actualizeazaCititor(Cititor cititor) {
         cititorService.actualizeazaCititor(cititor);
     }
 
+    public void schimbaParola(Cititor cititor, String parolaNoua) {
+        cititorService.schimbaParola(cititor, parolaNoua);
+    }
+
     public void adaugaAutor(Autor autor) {
         Objects.requireNonNull(autor);
         autorService.adaugaAutor(autor);
@@ -569,22 +591,78 @@ class Biblioteca {
         carteService.adaugaCarte(carte);
     }
 
+    // imprumutul activ al cartii dispare in cascada odata cu ea, deci il scoatem si din registru
     public void stergeCarte(Carte carte) {
         Objects.requireNonNull(carte);
-        carteService.stergeCarte(carte.getId());
+        Boolean stearsa = crudService.inTranzactie(tx -> {
+            carteService.stergeCarte(tx, carte.getId());
+            return true;
+        });
+        if (stearsa == null) {
+            return;
+        }
+        Imprumut imprumut = imprumuturiActive.getPentruCarte(carte.getId());
+        if (imprumut != null) {
+            scoateImprumut(imprumut);
+        }
     }
 
+    // cartile autorului (si, in cascada, imprumuturile lor) si autorul se sterg intr-o singura tranzactie
     public void stergeAutor(Autor autor) {
         Objects.requireNonNull(autor);
-        carteService.getToateCartile().stream()
-            .filter(c -> c.getAutor().equals(autor))
-            .forEach(c -> carteService.stergeCarte(c.getId()));
-        autorService.stergeAutor(autor.getId());
+        Boolean sters = crudService.inTranzactie(tx -> {
+            carteService.stergeCartiAutor(tx, autor.getId());
+            autorService.stergeAutor(tx, autor.getId());
+            return true;
+        });
+        if (sters == null) {
+            return;
+        }
+        for (Imprumut imprumut : imprumuturiActive.getToate()) {
+            if (imprumut.getCarteImprumutata().getAutor().getId() == autor.getId()) {
+                scoateImprumut(imprumut);
+            }
+        }
     }
 
+    // cartile imprumutate de cititor redevin disponibile in aceeasi tranzactie in care
+    // stergerea cititorului le sterge imprumuturile in cascada
     public void stergeCititor(Cititor cititor) {
         Objects.requireNonNull(cititor);
-        cititorService.stergeCititor(cititor.getId());
+        Boolean sters = crudService.inTranzactie(tx -> {
+            carteService.elibereazaCartiCititor(tx, cititor.getId());
+            cititorService.stergeCititor(tx, cititor.getId());
+            return true;
+        });
+        if (sters == null) {
+            return;
+        }
+        for (Imprumut imprumut : imprumuturiActive.getPentruCititor(cititor.getId())) {
+            imprumut.getCarteImprumutata().setEsteDisponibil(true);
+            scoateImprumut(imprumut);
+        }
+    }
+
+    // pentru imprumuturile sterse in cascada: nu mai sunt active si nu mai genereaza notificari
+    private void scoateImprumut(Imprumut imprumut) {
+        if (imprumuturiActive.elimina(imprumut.getCititor().getId(), imprumut.getCarteImprumutata().getId()) != null) {
+            imprumut.finalizeazaImprumut();
+            planificator.anuleaza(imprumut);
+        }
+    }
+
+    public Cititor autentificaCititor(int idCititor, String parola) {
+        return cititorService.autentifica(idCititor, parola);
+    }
+
+    // cititorul din sesiunea deschisa la autentificare sau, daca a expirat, din baza de date
+    public Cititor getCititorDupaIdCititor(int idCititor) {
+        Cititor cititor = cititorService.getCititorAutentificat(idCititor);
+        return cititor != null ? cititor : cititorService.getCititorDupaIdCititor(idCititor);
+    }
+
+    public void deconecteazaCititor(Cititor cititor) {
+        cititorService.inchideSesiune(cititor.getIdCititor());
     }
 
     public void inregistreazaCititor(Cititor cititor) {
@@ -597,45 +675,125 @@ class Biblioteca {
         Objects.requireNonNull(carte);
 
         if (!carte.esteDisponibil()) {
-            throw new IllegalStateException("Cartea nu este disponibila!");
+            throw new CarteIndisponibilaException("Cartea nu este disponibila!");
+        }
+        if (carte instanceof EditieSpeciala && !verificaEligibilEditieSpeciala(this, cititor)) {
+            throw new CititorNeeligibilException("Cititorul nu este eligibil pentru a imprumuta o editie speciala!");
         }
 
-        cititor.adaugaCarteImprumutata(carte);
-        carte.setEsteDisponibil(false);
-        carteService.actualizeazaCarte(carte);
-
+        // verificarea si rezervarea se fac intr-un singur UPDATE conditionat, astfel incat
+        // doi operatori care imprumuta aceeasi carte simultan nu pot reusi amandoi;
+        // rezervarea si inregistrarea imprumutului se confirma impreuna
         Imprumut imprumut = new Imprumut(cititor, carte, LocalDate.now(), dataReturnare);
-        imprumuturiActive.add(imprumut);
+        statistici.scriereInceputa();
+        Boolean salvat;
+        try {
+            salvat = crudService.inTranzactie(tx -> {
+                if (!carteService.marcheazaImprumutata(tx, carte.getId())) {
+                    throw new CarteIndisponibilaException("Cartea nu este disponibila!");
+                }
+                imprumutService.adaugaImprumut(tx, imprumut);
+                return true;
+            });
+        } catch (RuntimeException e) {
+            statistici.scriereAnulata();
+            throw e;
+        }
+        if (salvat == null) {
+            statistici.scriereAnulata();
+            throw new IllegalStateException("Imprumutul nu a putut fi salvat!");
+        }
+        statistici.carteImprumutata();
+
+        carte.setEsteDisponibil(false);
+        cititor.adaugaCarteImprumutata(carte);
+        imprumuturiActive.adauga(imprumut);
+        planificator.inregistreaza(imprumut);
+        carteService.imprumutInregistrat(carte);
     }
 
     public void returneazaCarte(Cititor cititor, Carte carte) {
-        Imprumut imprumut = imprumuturiActive.stream()
-            .filter(i -> i.getCititor().equals(cititor) 
-                    && i.getCarteImprumutata().equals(carte) 
-                    && i.esteActiv())
-            .findFirst()
-            .orElseThrow(() -> new IllegalStateException("Imprumutul nu exista!"));
-
-        cititor.getCartiImprumutate().remove(carte);
+        Imprumut imprumut = imprumuturiActive.elimina(cititor.getId(), carte.getId());
+        if (imprumut == null) {
+            throw new NoSuchElementException("Imprumutul nu exista!");
+        }
+
+        // elimina() reuseste o singura data per imprumut, deci doar un apel ajunge aici
+        statistici.scriereInceputa();
+        Boolean salvat;
+        try {
+            salvat = crudService.inTranzactie(tx -> {
+                carteService.marcheazaReturnata(tx, carte.getId());
+                imprumutService.finalizeazaImprumut(tx, imprumut);
+                return true;
+            });
+        } catch (RuntimeException e) {
+            statistici.scriereAnulata();
+            imprumuturiActive.adauga(imprumut);
+            throw e;
+        }
+        if (salvat == null) {
+            statistici.scriereAnulata();
+            imprumuturiActive.adauga(imprumut);
+            throw new IllegalStateException("Returnarea nu a putut fi salvata!");
+        }
+        statistici.carteReturnata();
+
         carte.setEsteDisponibil(true);
-        carteService.actualizeazaCarte(carte);
-        
         imprumut.finalizeazaImprumut();
-        imprumuturiActive.remove(imprumut);
-        istoricImprumuturi.add(imprumut);
+        planificator.anuleaza(imprumut);
     }
 
     public List<Carte> getListaCarti() {
         return carteService.getToateCartile();
     }
 
+    public List<Carte> getCartiDisponibile() {
+        return carteService.getCartiDisponibile();
+    }
+
+    public Stream<Carte> streamCartiDisponibile() {
+        return carteService.streamCartiDisponibile();
+    }
+
+    public List<Carte> cautaCartiDupaNume(String nume) {
+        return carteService.cautaDupaNume(nume);
+    }
+
+    public List<Carte> cautaCartiDupaAutor(String numeAutor) {
+        return carteService.cautaDupaAutor(numeAutor);
+    }
+
+    // cautare dupa cuvinte din titlu sau din numele autorului; fiecare cuvant poate fi
+    // si doar inceputul unui cuvant, iar cartea trebuie sa le contina pe toate
+    public List<Carte> cautaCarti(String text) {
+        return carteService.getCartiDupaIduri(carteService.getCatalog().cautaPrefix(text));
+    }
+
+    // ca cautaCarti, dar tolereaza greseli de scriere (1-2 litere, dupa lungimea cuvantului)
+    public List<Carte> cautaCartiAproximativ(String text) {
+        return carteService.getCartiDupaIduri(carteService.getCatalog().cautaAproximativ(text));
+    }
+
+    // titluri si autori care incep cu textul dat, cei mai imprumutati primii
+    public List<Autocomplete.Sugestie> getSugestii(String prefix, int limita) {
+        return carteService.getAutocomplete().sugereaza(prefix, limita);
+    }
+
+    public List<Carte> cautaCarti(CriteriiCautare criterii) {
+        return carteService.getCartiDupaIduri(carteService.getIndexAtribute().cauta(criterii));
+    }
+
+    public List<Carte> cautaCartiDupaAn(int anPublicatie) {
+        return carteService.cautaDupaAn(anPublicatie);
+    }
+
     public Map<Autor, List<Carte>> getCartiAutor() {
-        Map<Autor, List<Carte>> result = new HashMap<>();
-        for (Autor autor : autorService.getTotiAutorii()) {
-            List<Carte> carti = carteService.getCartiPentruAutor(autor.getId());
-            result.put(autor, carti);
-        }
-        return result;
+        return carteService.getCartiGrupateDupaAutor();
+    }
+
+    public Sectiune getSectiuneDupaNume(String numeSectiune) {
+        return sectiuneService.getSectiuneByNume(numeSectiune);
     }
 
     public List<Sectiune> getListaSectiuni() {
@@ -646,22 +804,36 @@ class Biblioteca {
         return new HashSet<>(cititorService.getTotiCititorii());
     }
 
+    public Pagina<Carte> getCartiPagina(int dupaId, int limita) {
+        return carteService.getCartiPagina(dupaId, limita);
+    }
+
+    public Pagina<Cititor> getCititoriPagina(int dupaId, int limita) {
+        return cititorService.getCititoriPagina(dupaId, limita);
+    }
+
     public List<Imprumut> getIstoricImprumuturi() {
-        return new ArrayList<>(istoricImprumuturi);
+        return imprumutService.getIstoric();
     }
 
     public List<Imprumut> getIstoricImprumuturiCititor(Cititor cititor) {
-        return istoricImprumuturi.stream()
-            .filter(i -> i.getCititor().equals(cititor))
-            .toList();
+        return imprumutService.getIstoricCititor(cititor.getId());
+    }
+
+    public List<Imprumut> getImprumuturiActiveCititor(Cititor cititor) {
+        return imprumuturiActive.getPentruCititor(cititor.getId());
     }
 
     public boolean verificaEligibilEditieSpeciala(Biblioteca biblioteca, Cititor cititor) {
         return biblioteca.getIstoricImprumuturiCititor(cititor).size() >= 1;
     }
 
+    public int getNumarImprumuturiActive() {
+        return imprumuturiActive.size();
+    }
+
     public List<Imprumut> getImprumuturiActive() {
-        return new ArrayList<>(imprumuturiActive);
+        return imprumuturiActive.getToate();
     }
     
     public void adaugaSectiune(Sectiune sectiune) {
@@ -672,51 +844,16 @@ class Biblioteca {
         sectiuneService.stergeSectiune(sectiune.getId());
     }
 
+    public Statistici getStatistici() {
+        return statistici.getStatistici();
+    }
+
     public List<String> verificaImprumuturiExpirate() {
-        List<String> notificari = new ArrayList<>();
-        LocalDate dataCurenta = LocalDate.now();
-        
-        for (Imprumut imprumut : imprumuturiActive) {
-            if (imprumut.getDataReturnare().isBefore(dataCurenta)) {
-                String notificare = String.format(
-                    "Notificare pentru %s %s: Cartea '%s' trebuie returnata! Data limita a fost: %s",
-                    imprumut.getCititor().getPrenume(),
-                    imprumut.getCititor().getNume(),
-                    imprumut.getCarteImprumutata().getNume(),
-                    imprumut.getDataReturnare()
-                );
-                notificari.add(notificare);
-            }
-        }
-        
-        return notificari;
+        return planificator.getNotificariExpirate(LocalDate.now());
     }
 
     public List<String> getNotificariPentruCititor(Cititor cititor) {
-        List<String> notificari = new ArrayList<>();
-        LocalDate dataCurenta = LocalDate.now();
-        
-        for (Imprumut imprumut : imprumuturiActive) {
-            if (imprumut.getCititor().equals(cititor)) {
-                if (imprumut.getDataReturnare().isBefore(dataCurenta)) {
-                    String notificare = String.format(
-                        "ATENTIE: Cartea '%s' trebuie returnata urgent! Data limita a fost: %s",
-                        imprumut.getCarteImprumutata().getNume(),
-                        imprumut.getDataReturnare()
-                    );
-                    notificari.add(notificare);
-                } else if (imprumut.getDataReturnare().isBefore(dataCurenta.plusDays(10))) {
-                    String notificare = String.format(
-                        "Reminder: Cartea '%s' trebuie returnata pana la %s",
-                        imprumut.getCarteImprumutata().getNume(),
-                        imprumut.getDataReturnare()
-                    );
-                    notificari.add(notificare);
-                }
-            }
-        }
-        
-        return notificari;
+        return planificator.getNotificariCititor(cititor.getId(), LocalDate.now());
     }
 
     public List<Sectiune> getNumeSectiune() {
@@ -736,12 +873,14 @@ class InitializareDate {
             SectiuneService sectiuneService = SectiuneService.getInstance();
             CarteService carteService = CarteService.getInstance();
             CititorService cititorService = CititorService.getInstance();
+            ImprumutService imprumutService = ImprumutService.getInstance();
 
             // 1. Creează tabelele în ordinea corectă
             autorService.createTable();
             sectiuneService.createTable();
             carteService.createTable();
             cititorService.createTable();
+            imprumutService.createTable();
 
             // 2. Populează autorii (dacă tabela e goală)
             if (autorService.countAutori() == 0) {
@@ -814,6 +953,8 @@ class InitializareDate {
 
 
 class Meniu {
+    private static final int DIMENSIUNE_PAGINA = 20;
+    private static final int NUMAR_SUGESTII = 10;
     private Biblioteca biblioteca;
     
     public Meniu(Biblioteca biblioteca) {
@@ -833,6 +974,30 @@ class Meniu {
     }
 
 
+    // numaratorile vin din segmentele binare ale auditului, deci doar cu -Dbiblioteca.audit.binary=true
+    private void afiseazaActivitateAudit() {
+        if (!Audit.isBinaryEnabled()) {
+            System.out.println("Auditul binar nu este activat (-Dbiblioteca.audit.binary=true).");
+            return;
+        }
+        long pana = System.currentTimeMillis();
+        long de = pana - 24 * 3_600_000L;
+        try {
+            AuditReader reader = new AuditReader(Paths.get("."));
+            long[] perActiune = reader.countPerActiune(de, pana);
+            System.out.println("Actiuni in ultimele 24 de ore:");
+            for (int id = 0; id < perActiune.length; id++) {
+                if (perActiune[id] > 0) {
+                    System.out.println("- " + reader.numeActiune(id) + ": " + perActiune[id]);
+                }
+            }
+            long[] perOra = reader.countPerOra(de, pana);
+            System.out.println("Pe ore (cea mai veche prima): " + Arrays.toString(perOra));
+        } catch (IOException e) {
+            System.out.println("Eroare la citirea auditului: " + e.getMessage());
+        }
+    }
+
     public void afiseazaMeniu() {
         Scanner scanner = new Scanner(System.in);
         int optiune;
@@ -873,6 +1038,7 @@ class Meniu {
                                 System.out.println("9. Afiseaza cititorii inregistrati");
                                 System.out.println("10. Afiseaza istoric imprumuturi");
                                 System.out.println("11. Statistici biblioteca");
+                                System.out.println("12. Activitate din ultimele 24 de ore (audit)");
                                 System.out.println("0. Iesire");
 
                                 optiuneAdmin = citesteInt(scanner, "Alege o optiune: ");
@@ -990,11 +1156,7 @@ class Meniu {
                                     case 6:
                                         System.out.print("Introdu ID-ul cititorului de sters: ");
                                         int idCititorStergere = citesteInt(scanner, "ID-ul cititorului: ");
-                                        Set<Cititor> cititori = biblioteca.getCititoriInregistrati();
-                                        Cititor cititorDeSters = cititori.stream()
-                                                .filter(c -> c.getIdCititor() == idCititorStergere)
-                                                .findFirst()
-                                                .orElse(null);
+                                        Cititor cititorDeSters = biblioteca.getCititorDupaIdCititor(idCititorStergere);
                                         if (cititorDeSters == null) {
                                             System.out.println("Cititorul nu a fost gasit!");
                                             break;
@@ -1035,8 +1197,19 @@ class Meniu {
                                         
                                     case 9:
                                         System.out.println("Cititorii inregistrati:");
-                                        for (Cititor cit : biblioteca.getCititoriInregistrati()) {
-                                            System.out.println("- " + cit.getNume() + " " + cit.getPrenume());
+                                        Pagina<Cititor> paginaCititori = biblioteca.getCititoriPagina(0, DIMENSIUNE_PAGINA);
+                                        while (true) {
+                                            for (Cititor cit : paginaCititori.getElemente()) {
+                                                System.out.println("- " + cit.getNume() + " " + cit.getPrenume());
+                                            }
+                                            if (!paginaCititori.areUrmatoare()) {
+                                                break;
+                                            }
+                                            System.out.print("Afiseaza pagina urmatoare? (d/n): ");
+                                            if (!scanner.nextLine().trim().equalsIgnoreCase("d")) {
+                                                break;
+                                            }
+                                            paginaCititori = biblioteca.getCititoriPagina(paginaCititori.getContinuare(), DIMENSIUNE_PAGINA);
                                         }
                                         break;
 
@@ -1048,10 +1221,21 @@ class Meniu {
                                         break;
                                     
                                     case 11:
+                                        Statistici statistici = biblioteca.getStatistici();
                                         System.out.println("Statistici biblioteca:");
-                                        System.out.println("- Numarul total de carti: " + biblioteca.getListaCarti().size());
-                                        System.out.println("- Numarul total de cititori inregistrati: " + biblioteca.getCititoriInregistrati().size());
-                                        System.out.println("- Numarul total de imprumuturi active: " + biblioteca.getImprumuturiActive().size());
+                                        System.out.println("- Numarul total de carti: " + statistici.getTotalCarti()
+                                            + " (disponibile: " + statistici.getCartiDisponibile()
+                                            + ", imprumutate: " + statistici.getCartiImprumutate() + ")");
+                                        System.out.println("- Numarul total de cititori inregistrati: " + statistici.getTotalCititori());
+                                        System.out.println("- Numarul total de imprumuturi active: " + statistici.getImprumuturiActive());
+                                        System.out.println("- Carti pe sectiuni: " + statistici.getPerSectiune());
+                                        System.out.println("- Carti pe genuri: " + statistici.getPerGen());
+                                        System.out.println("- Carti pe autori: " + statistici.getPerAutor());
+                                        System.out.println("- Carti pe decenii: " + statistici.getPerDeceniu());
+                                        break;
+
+                                    case 12:
+                                        afiseazaActivitateAudit();
                                         break;
 
                                     case 0:
@@ -1079,10 +1263,7 @@ class Meniu {
                         System.out.print("Introdu parola: ");
                         String parolaCititor = scanner.next();
                         scanner.nextLine();
-                        Cititor cititorGasit = biblioteca.getCititoriInregistrati().stream()
-                                .filter(c -> c.getIdCititor() == idCititor && c.getParola().equals(parolaCititor))
-                                .findFirst()
-                                .orElse(null);
+                        Cititor cititorGasit = biblioteca.autentificaCititor(idCititor, parolaCititor);
                         if (cititorGasit != null) {
                             autentificatCititor = true;
                             System.out.println("Autentificare reusita!");
@@ -1101,9 +1282,7 @@ class Meniu {
 
                                 switch(optiuneCititor){
                                     case 1:
-                                        List<Carte> cartiDisponibile = biblioteca.getListaCarti().stream()
-                                                .filter(Carte::esteDisponibil)
-                                                .toList();
+                                        List<Carte> cartiDisponibile = biblioteca.getCartiDisponibile();
 
                                         if (cartiDisponibile.isEmpty()) {
                                             System.out.println("Nu exista carti disponibile pentru imprumut!");
@@ -1125,12 +1304,6 @@ class Meniu {
 
                                         Carte carteImprumut = cartiDisponibile.get(numarCarte - 1);
 
-                                        if (carteImprumut instanceof EditieSpeciala && 
-                                            !biblioteca.verificaEligibilEditieSpeciala(biblioteca, cititorGasit)) {
-                                            System.out.println("Cititorul nu este eligibil pentru a imprumuta o editie speciala!");
-                                            break;
-                                        }
-
                                         System.out.print("Introdu data de returnare (YYYY-MM-DD): ");
                                         String dataReturnareStr = scanner.nextLine();
 
@@ -1144,12 +1317,17 @@ class Meniu {
                                             System.out.println("Data de returnare este: " + dataReturnare);
                                         } catch (DateTimeParseException e) {
                                             System.out.println("Formatul datei este invalid!");
+                                        } catch (IllegalStateException e) {
+                                            // cititor neeligibil, alt operator a imprumutat cartea intre timp sau salvarea a esuat
+                                            System.out.println(e.getMessage());
                                         }
                                         break;
 
                                     case 2:
                                         System.out.print("Alege numarul cartii de returnat: \n");
-                                        List<Carte> cartiImprumutate = cititorGasit.getCartiImprumutate();
+                                        List<Carte> cartiImprumutate = biblioteca.getImprumuturiActiveCititor(cititorGasit).stream()
+                                                .map(Imprumut::getCarteImprumutata)
+                                                .toList();
                                         if (cartiImprumutate.isEmpty()) {
                                             System.out.println("Nu ai carti imprumutate!");
                                             break;
@@ -1165,34 +1343,125 @@ class Meniu {
                                             break;
                                         }
                                         Carte carteReturnare = cartiImprumutate.get(indexCarteReturnare);
-                                        if (!carteReturnare.esteDisponibil()) {
+                                        if (carteReturnare.esteDisponibil()) {
                                             System.out.println("Cartea nu este imprumutata!");
                                             break;
                                         }
 
-                                        biblioteca.returneazaCarte(cititorGasit, carteReturnare);
-                                        System.out.println("Cartea a fost returnata cu succes!");
+                                        try {
+                                            biblioteca.returneazaCarte(cititorGasit, carteReturnare);
+                                            System.out.println("Cartea a fost returnata cu succes!");
+                                        } catch (IllegalStateException | NoSuchElementException e) {
+                                            System.out.println(e.getMessage());
+                                        }
                                         break;
                                     
                                     case 3:
                                         System.out.println("Cartile disponibile:");
-                                        for (Carte carte : biblioteca.getListaCarti()) {
-                                            if (carte.esteDisponibil()) {
-                                                System.out.println("- " + carte.getNume() + " de " + carte.getAutor().getPrenume() + " " + carte.getAutor().getNume() + " (" + carte.getAnPublicatie() + ")");
-                                            }
+                                        try (Stream<Carte> carti = biblioteca.streamCartiDisponibile()) {
+                                            carti.forEach(carte -> System.out.println("- " + carte.getNume() + " de " + carte.getAutor().getPrenume() + " " + carte.getAutor().getNume() + " (" + carte.getAnPublicatie() + ")"));
+                                        } catch (IllegalStateException e) {
+                                            System.out.println(e.getMessage());
                                         }
                                         break;
 
                                     case 4:
-                                        System.out.print("Dupa ce criteriu doriti sa cautati (n - nume, a - autor, ap - an publicatie): ");
+                                        System.out.print("Dupa ce criteriu doriti sa cautati (t - text liber, s - sugestii, n - nume, a - autor, ap - an publicatie, f - filtre combinate): ");
                                         String criteriu = scanner.nextLine();
-                                        if (criteriu.equalsIgnoreCase("n")) {
+                                        if (criteriu.equalsIgnoreCase("t")) {
+                                            System.out.print("Introdu cuvinte din titlu sau din numele autorului: ");
+                                            String textCautat = scanner.nextLine();
+
+                                            List<Carte> cartiGasite;
+                                            try {
+                                                cartiGasite = biblioteca.cautaCarti(textCautat);
+                                                if (cartiGasite.isEmpty()) {
+                                                    cartiGasite = biblioteca.cautaCartiAproximativ(textCautat);
+                                                    if (!cartiGasite.isEmpty()) {
+                                                        System.out.println("Nu exista potriviri exacte, rezultate apropiate:");
+                                                    }
+                                                }
+                                            } catch (IllegalStateException e) {
+                                                System.out.println(e.getMessage());
+                                                break;
+                                            }
+                                            if (cartiGasite.isEmpty()) {
+                                                System.out.println("Nu s-au gasit carti pentru " + textCautat);
+                                            } else {
+                                                for (Carte carte : cartiGasite) {
+                                                    System.out.println("- " + carte.getNume() + " de " + carte.getAutor().getNume() + " (" + carte.getAnPublicatie() + ")");
+                                                }
+                                            }
+
+                                        } else if (criteriu.equalsIgnoreCase("s")) {
+                                            System.out.print("Introdu inceputul titlului sau al numelui autorului: ");
+                                            String prefix = scanner.nextLine();
+
+                                            List<Autocomplete.Sugestie> sugestii;
+                                            try {
+                                                sugestii = biblioteca.getSugestii(prefix, NUMAR_SUGESTII);
+                                            } catch (IllegalStateException e) {
+                                                System.out.println(e.getMessage());
+                                                break;
+                                            }
+                                            if (sugestii.isEmpty()) {
+                                                System.out.println("Nu exista sugestii pentru " + prefix);
+                                            } else {
+                                                for (Autocomplete.Sugestie sugestie : sugestii) {
+                                                    System.out.println("- " + sugestie);
+                                                }
+                                            }
+
+                                        } else if (criteriu.equalsIgnoreCase("f")) {
+                                            CriteriiCautare.Builder criterii = new CriteriiCautare.Builder();
+                                            int anMinim = citesteInt(scanner, "An publicatie de la (0 - oricare): ");
+                                            int anMaxim = citesteInt(scanner, "An publicatie pana la (0 - oricare): ");
+                                            scanner.nextLine();
+                                            try {
+                                                criterii.setAnIntre(anMinim > 0 ? anMinim : Integer.MIN_VALUE,
+                                                                    anMaxim > 0 ? anMaxim : Integer.MAX_VALUE);
+                                            } catch (IllegalArgumentException e) {
+                                                System.out.println(e.getMessage());
+                                                break;
+                                            }
+                                            System.out.print("Sectiune (gol - oricare): ");
+                                            String numeSectiune = scanner.nextLine().trim();
+                                            if (!numeSectiune.isEmpty()) {
+                                                Sectiune sectiune = biblioteca.getSectiuneDupaNume(numeSectiune);
+                                                if (sectiune == null) {
+                                                    System.out.println("Sectiunea nu exista!");
+                                                    break;
+                                                }
+                                                criterii.setSectiune(sectiune);
+                                            }
+                                            System.out.print("Gen literar (gol - oricare): ");
+                                            String gen = scanner.nextLine().trim();
+                                            if (!gen.isEmpty()) {
+                                                criterii.setGenLiterar(gen);
+                                            }
+                                            System.out.print("Doar carti disponibile? (d/n): ");
+                                            criterii.setDoarDisponibile(scanner.nextLine().trim().equalsIgnoreCase("d"));
+
+                                            List<Carte> cartiGasite;
+                                            try {
+                                                cartiGasite = biblioteca.cautaCarti(criterii.build());
+                                            } catch (IllegalStateException e) {
+                                                System.out.println(e.getMessage());
+                                                break;
+                                            }
+                                            if (cartiGasite.isEmpty()) {
+                                                System.out.println("Nu s-au gasit carti pentru criteriile date.");
+                                            } else {
+                                                for (Carte carte : cartiGasite) {
+                                                    System.out.println("- " + carte.getNume() + " de " + carte.getAutor().getNume() + " (" + carte.getAnPublicatie() + ")");
+                                                }
+                                            }
+
+                                        } else if (criteriu.equalsIgnoreCase("n")) {
                                             System.out.print("Introdu numele cartii: ");
                                             String numeCarteCautata = scanner.nextLine();
                                             
-                                            List<Carte> cartiGasite = biblioteca.getListaCarti().stream()
-                                                    .filter(c -> c.getNume().equalsIgnoreCase(numeCarteCautata))
-                                                    .toList();
+                                            List<Carte> cartiGasite = biblioteca.cautaCartiDupaNume(numeCarteCautata);
                                             if (cartiGasite.isEmpty()) {
                                                 System.out.println("Nu s-au gasit carti cu numele " + numeCarteCautata);
                                             } else {
@@ -1206,9 +1475,7 @@ class Meniu {
                                             System.out.print("Introdu numele autorului: ");
                                             String numeAutorCautat = scanner.nextLine();
                                             
-                                            List<Carte> cartiGasite = biblioteca.getListaCarti().stream()
-                                                    .filter(c -> c.getAutor().getNume().equalsIgnoreCase(numeAutorCautat))
-                                                    .toList();
+                                            List<Carte> cartiGasite = biblioteca.cautaCartiDupaAutor(numeAutorCautat);
                                             
                                             if (cartiGasite.isEmpty()) {
                                                 System.out.println("Nu s-au gasit carti pentru autorul " + numeAutorCautat);
@@ -1221,9 +1488,7 @@ class Meniu {
                                         } else if (criteriu.equalsIgnoreCase("ap")) {
                                             int anPublicatieCautat = citesteInt(scanner, "Introdu anul publicatiei: ");
                                             
-                                            List<Carte> cartiGasite = biblioteca.getListaCarti().stream()
-                                                    .filter(c -> c.getAnPublicatie() == anPublicatieCautat)
-                                                    .toList();
+                                            List<Carte> cartiGasite = biblioteca.cautaCartiDupaAn(anPublicatieCautat);
                                             
                                             if (cartiGasite.isEmpty()) {
                                                 System.out.println("Nu s-au gasit carti pentru anul publicatiei " + anPublicatieCautat);
@@ -1243,10 +1508,7 @@ class Meniu {
                                         break;
 
                                     case 5:                                   
-                                        Cititor cititorStatistici = biblioteca.getCititoriInregistrati().stream()
-                                                .filter(c -> c.getIdCititor() == idCititor)
-                                                .findFirst()
-                                                .orElse(null);
+                                        Cititor cititorStatistici = biblioteca.getCititorDupaIdCititor(idCititor);
                                         
                                         try {
                                             if (cititorStatistici == null) {
@@ -1269,8 +1531,7 @@ class Meniu {
                                     case 6:
                                         System.out.print("Introdu noua parola: ");
                                         String nouaParola = scanner.nextLine();
-                                        cititorGasit.setParola(nouaParola);
-                                        biblioteca.actualizeazaCititor(cititorGasit);
+                                        biblioteca.schimbaParola(cititorGasit, nouaParola);
                                         System.out.println("Parola a fost schimbata cu succes!");
                                         break;
                                     
@@ -1288,6 +1549,7 @@ class Meniu {
 
                                     case 0:
                                         System.out.println("Iesire din contul de cititor.");
+                                        biblioteca.deconecteazaCititor(cititorGasit);
                                         autentificatCititor = false;
                                         break;
                                     
@@ -1324,10 +1586,29 @@ public class proiect {
         
 
         Biblioteca biblioteca = new Biblioteca();
-        
+
+        // java withDB.proiect --server : API HTTP in loc de meniul din consola
+        if (args.length > 0 && args[0].equals("--server")) {
+            try {
+                ServerHttp server = new ServerHttp(biblioteca);
+                Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+                    server.stop();
+                    Audit.getInstance().close();
+                    DatabaseConnection.getInstance().closeConnection();
+                }));
+                server.start();
+            } catch (IOException e) {
+                System.err.println("Serverul nu a putut porni: " + e.getMessage());
+                Audit.getInstance().close();
+                DatabaseConnection.getInstance().closeConnection();
+            }
+            return;
+        }
+
         Meniu meniu = new Meniu(biblioteca);
         meniu.afiseazaMeniu();
         
+        Audit.getInstance().close();
         DatabaseConnection.getInstance().closeConnection();
     }
 }
\ No newline at end of file